@@ -0,0 +1,59 @@
+package com.laze.springwebfluxpractice.benchmark;
+
+import com.laze.springwebfluxpractice.support.VirtualThreads;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code calls} concurrent blocking calls of {@code blockMillis} each, subscribed on boundedElastic
+ * (capped at 10 x cores threads, the rest queue) or on a virtual-thread scheduler. The gc profiler reports
+ * heap allocation, which for virtual threads includes their stacks; boundedElastic's platform thread stacks
+ * are native memory and not part of it.
+ * The virtual variant needs {@code ./gradlew jmh -PjavaVersion=21 -PjmhIncludes=BlockingScheduler}; on 17 the
+ * build limits {@code scheduler} to boundedElastic, and a direct {@code -p scheduler=virtual} fails in setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BlockingSchedulerBenchmark {
+
+    @Param({"boundedElastic", "virtual"})
+    public String scheduler;
+
+    @Param({"1000", "10000"})
+    public int calls;
+
+    @Param({"10"})
+    public long blockMillis;
+
+    private Scheduler target;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        target = scheduler.equals("virtual")
+                ? VirtualThreads.newScheduler("bench-vt-")
+                : Schedulers.newBoundedElastic(Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE,
+                        Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "bench-elastic");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        target.dispose();
+    }
+
+    @Benchmark
+    public Long blockingCalls() {
+        return Flux.range(0, calls)
+                .flatMap(i -> Mono.fromCallable(() -> {
+                    Thread.sleep(blockMillis);
+                    return i;
+                }).subscribeOn(target), calls)
+                .count()
+                .block();
+    }
+}
@@ -0,0 +1,68 @@
+package com.laze.springwebfluxpractice.benchmark;
+
+import com.laze.springwebfluxpractice.repository.User;
+import com.laze.springwebfluxpractice.repository.UserRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The previous boxed-key UserRepositoryImpl, kept as the baseline. Lookups that it has no index for scan the values.
+ */
+public class ConcurrentHashMapUserRepository implements UserRepository {
+    private final ConcurrentHashMap<Long, User> userHashMap = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong(1L);
+
+    @Override
+    public Mono<User> save(User user) {
+        var now = LocalDateTime.now();
+
+        if (user.getId() == null) {
+            user.setId(sequence.getAndAdd(1));
+            user.setCreatedAt(now);
+        }
+
+        user.setUpdatedAt(now);
+        userHashMap.put(user.getId(), user);
+        return Mono.just(user);
+    }
+
+    @Override
+    public Flux<User> findAll() {
+        return Flux.fromIterable(userHashMap.values());
+    }
+
+    @Override
+    public Flux<User> findByName(String name) {
+        return Flux.fromIterable(userHashMap.values())
+                .filter(user -> name.equals(user.getName()));
+    }
+
+    @Override
+    public Flux<User> findPageAfter(Long after, int limit) {
+        return Flux.fromStream(userHashMap.values().stream()
+                .filter(user -> user.getId() > after)
+                .sorted(Comparator.comparing(User::getId))
+                .limit(limit));
+    }
+
+    @Override
+    public Mono<User> findById(Long id) {
+        return Mono.justOrEmpty(userHashMap.getOrDefault(id, null));
+    }
+
+    @Override
+    public Mono<Integer> deleteById(Long id) {
+        User user = userHashMap.getOrDefault(id, null);
+        if (user == null) {
+            return Mono.just(0);
+        }
+
+        userHashMap.remove(id, user);
+        return Mono.just(1);
+    }
+}
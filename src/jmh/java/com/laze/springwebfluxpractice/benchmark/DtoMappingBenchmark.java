@@ -0,0 +1,44 @@
+package com.laze.springwebfluxpractice.benchmark;
+
+import com.laze.springwebfluxpractice.dto.UserPostResponse;
+import com.laze.springwebfluxpractice.dto.UserResponse;
+import com.laze.springwebfluxpractice.repository.Post;
+import com.laze.springwebfluxpractice.repository.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DtoMappingBenchmark {
+
+    private User user;
+    private Post post;
+
+    @Setup
+    public void setup() {
+        var now = LocalDateTime.now();
+        user = new User(1L, "laze", "laze@email.com", now, now);
+        post = Post.builder()
+                .id(10L)
+                .userId(1L)
+                .title("title")
+                .content("content ".repeat(32))
+                .user(user)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    @Benchmark
+    public UserResponse userResponseOf() {
+        return UserResponse.of(user);
+    }
+
+    @Benchmark
+    public UserPostResponse userPostResponseOf() {
+        return UserPostResponse.of(post);
+    }
+}
@@ -0,0 +1,98 @@
+package com.laze.springwebfluxpractice.benchmark;
+
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Array backed {@link Row} standing in for a driver row, so mapping cost can be measured without a database.
+ */
+class FakeRow implements Row {
+
+    private final String[] names;
+    private final Object[] values;
+
+    FakeRow(String[] names, Object[] values) {
+        this.names = names;
+        this.values = values;
+    }
+
+    @Override
+    public <T> T get(int index, Class<T> type) {
+        return type.cast(values[index]);
+    }
+
+    @Override
+    public <T> T get(String name, Class<T> type) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equalsIgnoreCase(name)) {
+                return type.cast(values[i]);
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    @Override
+    public RowMetadata getMetadata() {
+        List<ColumnMetadata> columns = new ArrayList<>(names.length);
+        for (int i = 0; i < names.length; i++) {
+            columns.add(new FakeColumn(names[i], values[i] == null ? Object.class : values[i].getClass()));
+        }
+        return new FakeRowMetadata(columns);
+    }
+
+    String name(int index) {
+        return names[index];
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    private record FakeRowMetadata(List<ColumnMetadata> columns) implements RowMetadata {
+        @Override
+        public ColumnMetadata getColumnMetadata(int index) {
+            return columns.get(index);
+        }
+
+        @Override
+        public ColumnMetadata getColumnMetadata(String name) {
+            return columns.stream()
+                    .filter(column -> column.getName().equalsIgnoreCase(name))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(name));
+        }
+
+        @Override
+        public List<? extends ColumnMetadata> getColumnMetadatas() {
+            return columns;
+        }
+
+        @Override
+        public boolean contains(String name) {
+            return columns.stream().anyMatch(column -> column.getName().equalsIgnoreCase(name));
+        }
+    }
+
+    // the value's class stands in for the column type
+    private record FakeColumn(String name, Class<?> javaType) implements ColumnMetadata, Type {
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Class<?> getJavaType() {
+            return javaType;
+        }
+
+        @Override
+        public Type getType() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.laze.springwebfluxpractice.benchmark;
+
+import com.laze.springwebfluxpractice.dto.PostResponse;
+import com.laze.springwebfluxpractice.support.FanOut;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * /posts/search fan-out against a simulated non-blocking upstream (fixed latency, 25% repeated ids):
+ * the former flatMap and parallel().runOn() versions against {@link FanOut}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FanOutBenchmark {
+
+    @Param({"100", "1000"})
+    public int ids;
+
+    private List<Long> idList;
+
+    @Setup
+    public void setup() {
+        idList = LongStream.range(0, ids)
+                .map(i -> i % 4 == 0 ? 0 : i)
+                .boxed()
+                .toList();
+    }
+
+    private static Mono<PostResponse> upstream(Long id) {
+        return Mono.just(new PostResponse(id.toString(), "content"))
+                .delayElement(Duration.ofMillis(2));
+    }
+
+    @Benchmark
+    public List<PostResponse> unboundedFlatMap() {
+        return Flux.fromIterable(idList)
+                .flatMap(FanOutBenchmark::upstream)
+                .collectList()
+                .block();
+    }
+
+    @Benchmark
+    public List<PostResponse> parallelRunOn() {
+        return Flux.fromIterable(idList)
+                .parallel()
+                .runOn(Schedulers.parallel())
+                .flatMap(FanOutBenchmark::upstream)
+                .sequential()
+                .collectList()
+                .block();
+    }
+
+    @Benchmark
+    public List<PostResponse> fanOutOrdered() {
+        return FanOut.execute(idList, FanOutBenchmark::upstream, new FanOut.Options(32, true, null))
+                .collectList()
+                .block();
+    }
+
+    @Benchmark
+    public List<PostResponse> fanOutUnordered() {
+        return FanOut.execute(idList, FanOutBenchmark::upstream, new FanOut.Options(32, false, null))
+                .collectList()
+                .block();
+    }
+}
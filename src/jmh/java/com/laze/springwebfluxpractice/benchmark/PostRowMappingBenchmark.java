@@ -0,0 +1,81 @@
+package com.laze.springwebfluxpractice.benchmark;
+
+import com.laze.springwebfluxpractice.repository.Post;
+import com.laze.springwebfluxpractice.repository.PostWithUserRowMapper;
+import com.laze.springwebfluxpractice.repository.User;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user post list mapping: the former fetch().all() path (LinkedHashMap per row + casts)
+ * against {@link PostWithUserRowMapper}. Compare gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PostRowMappingBenchmark {
+
+    private static final String[] COLUMNS = {
+            "pid", "userId", "title", "content", "createdAt", "updatedAt",
+            "uid", "name", "email", "uCreatedAt", "uUpdatedAt"
+    };
+
+    @Param({"10", "1000"})
+    public int rows;
+
+    private FakeRow[] resultSet;
+
+    @Setup
+    public void setup() {
+        var now = LocalDateTime.now();
+        resultSet = new FakeRow[rows];
+        for (int i = 0; i < rows; i++) {
+            resultSet[i] = new FakeRow(COLUMNS, new Object[]{
+                    (long) i, 1L, "title" + i, "content" + i, now, now,
+                    1L, "laze", "laze@email.com", now, now
+            });
+        }
+    }
+
+    @Benchmark
+    public void mapBased(Blackhole blackhole) {
+        for (FakeRow row : resultSet) {
+            Map<String, Object> map = new LinkedHashMap<>(row.size());
+            for (int i = 0; i < row.size(); i++) {
+                map.put(row.name(i), row.get(i, Object.class));
+            }
+            blackhole.consume(fromMap(map));
+        }
+    }
+
+    @Benchmark
+    public void rowMapper(Blackhole blackhole) {
+        var mapper = new PostWithUserRowMapper();
+        for (FakeRow row : resultSet) {
+            blackhole.consume(mapper.apply(row, null));
+        }
+    }
+
+    private static Post fromMap(Map<String, Object> row) {
+        return Post.builder()
+                .id((Long) row.get("pid"))
+                .userId((Long) row.get("userId"))
+                .title((String) row.get("title"))
+                .content((String) row.get("content"))
+                .user(User.builder()
+                        .id((Long) row.get("uid"))
+                        .name((String) row.get("name"))
+                        .email((String) row.get("email"))
+                        .createdAt((LocalDateTime) row.get("uCreatedAt"))
+                        .updatedAt((LocalDateTime) row.get("uUpdatedAt"))
+                        .build())
+                .createdAt((LocalDateTime) row.get("createdAt"))
+                .updatedAt((LocalDateTime) row.get("updatedAt"))
+                .build();
+    }
+}
@@ -0,0 +1,64 @@
+package com.laze.springwebfluxpractice.benchmark;
+
+import com.laze.springwebfluxpractice.cache.UserBinaryRedisSerializer;
+import com.laze.springwebfluxpractice.config.RedisConfig;
+import com.laze.springwebfluxpractice.repository.User;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RedisSerializerBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisSerializerBenchmark.class);
+
+    private RedisSerializer<User> json;
+    private RedisSerializer<User> binary;
+    private User user;
+    private byte[] jsonBytes;
+    private byte[] binaryBytes;
+
+    @Setup
+    public void setup() {
+        json = new Jackson2JsonRedisSerializer<>(RedisConfig.redisObjectMapper(), User.class);
+        binary = new UserBinaryRedisSerializer(json, 512);
+        var now = LocalDateTime.now();
+        user = new User(1L, "laze", "laze@email.com", now, now);
+        jsonBytes = json.serialize(user);
+        binaryBytes = binary.serialize(user);
+        log.info("Payload bytes: json={} binary={}", jsonBytes.length, binaryBytes.length);
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return json.serialize(user);
+    }
+
+    @Benchmark
+    public User jsonDeserialize() {
+        return json.deserialize(jsonBytes);
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return binary.serialize(user);
+    }
+
+    @Benchmark
+    public User binaryDeserialize() {
+        return binary.deserialize(binaryBytes);
+    }
+
+    // reading values written before switching the codec
+    @Benchmark
+    public User binaryDeserializeJsonFallback() {
+        return binary.deserialize(jsonBytes);
+    }
+}
@@ -0,0 +1,104 @@
+package com.laze.springwebfluxpractice.benchmark;
+
+import com.laze.springwebfluxpractice.repository.User;
+import com.laze.springwebfluxpractice.repository.UserChangeLog;
+import com.laze.springwebfluxpractice.repository.UserRepositoryImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write throughput of the persistent {@link UserRepositoryImpl} (group commit with and without fsync)
+ * and recovery time for a store of {@code users} entries, from a snapshot or from the log alone.
+ */
+public class UserChangeLogBenchmark {
+
+    private static final long NO_SNAPSHOT = Long.MAX_VALUE;
+
+    @State(Scope.Benchmark)
+    public static class WriteState {
+        @Param({"true", "false"})
+        public boolean fsync;
+
+        Path dir;
+        UserRepositoryImpl userRepository;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            dir = Files.createTempDirectory("users-log-bench");
+            userRepository = new UserRepositoryImpl(0, UserChangeLog.open(dir, fsync, 256L << 20));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            userRepository.destroy();
+            FileSystemUtils.deleteRecursively(dir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RecoveryState {
+        @Param({"1000000", "5000000"})
+        public int users;
+
+        @Param({"snapshot", "log"})
+        public String source;
+
+        Path dir;
+        UserRepositoryImpl restored;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            dir = Files.createTempDirectory("users-recovery-bench");
+            var changeLog = UserChangeLog.open(dir, false, NO_SNAPSHOT);
+            var userRepository = new UserRepositoryImpl(0, changeLog);
+            for (int i = 0; i < users; i++) {
+                userRepository.save(User.builder().name("laze" + i).email("laze%d@email.com".formatted(i)).build());
+            }
+            if (source.equals("snapshot")) {
+                userRepository.destroy();
+            } else {
+                // commits are FIFO: once the last save is durable the whole log is; no shutdown snapshot
+                userRepository.save(User.builder().name("last").email("last@email.com").build()).block();
+            }
+        }
+
+        // in log mode the restored store is left open (a daemon writer per iteration) so its shutdown
+        // snapshot does not turn the next iteration into a snapshot recovery
+        @TearDown(Level.Iteration)
+        public void closeRestored() {
+            if (restored != null && source.equals("snapshot")) {
+                restored.destroy();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            FileSystemUtils.deleteRecursively(dir);
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public User save(WriteState state) {
+        long id = ThreadLocalRandom.current().nextLong(1, 1_000_000);
+        return state.userRepository.save(User.builder().id(id).name("laze" + id).email("laze@email.com").build()).block();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public int recover(RecoveryState state) {
+        state.restored = new UserRepositoryImpl(0, UserChangeLog.open(state.dir, false, NO_SNAPSHOT));
+        return state.restored.size();
+    }
+}
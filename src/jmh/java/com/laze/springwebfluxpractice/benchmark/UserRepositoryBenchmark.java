@@ -0,0 +1,72 @@
+package com.laze.springwebfluxpractice.benchmark;
+
+import com.laze.springwebfluxpractice.repository.User;
+import com.laze.springwebfluxpractice.repository.UserRepository;
+import com.laze.springwebfluxpractice.repository.UserRepositoryImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserRepositoryBenchmark {
+
+    @Param({"100000"})
+    public int users;
+
+    @Param({"indexed", "concurrentHashMap"})
+    public String engine;
+
+    private UserRepository userRepository;
+
+    @Setup
+    public void setup() {
+        userRepository = engine.equals("indexed") ? new UserRepositoryImpl() : new ConcurrentHashMapUserRepository();
+        for (int i = 0; i < users; i++) {
+            userRepository.save(User.builder().name("laze" + i).email("laze%d@email.com".formatted(i)).build()).block();
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public User findById() {
+        return userRepository.findById(ThreadLocalRandom.current().nextLong(1, users + 1)).block();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public User save() {
+        long id = ThreadLocalRandom.current().nextLong(1, users + 1);
+        return userRepository.save(User.builder().id(id).name("laze" + id).email("laze@email.com").build()).block();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<User> findByName() {
+        return userRepository.findByName("laze" + ThreadLocalRandom.current().nextInt(users)).collectList().block();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<User> findPageAfter() {
+        return userRepository.findPageAfter(ThreadLocalRandom.current().nextLong(users), 20).collectList().block();
+    }
+
+    // insert + delete keeps the size stable across iterations
+    @Benchmark
+    @Threads(4)
+    public Integer saveAndDelete() {
+        User user = userRepository.save(User.builder().name("tmp").email("tmp@email.com").build()).block();
+        return userRepository.deleteById(user.getId()).block();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<User> findAll() {
+        return userRepository.findAll().collectList().block();
+    }
+}
@@ -0,0 +1,103 @@
+package com.laze.springwebfluxpractice.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.LongFunction;
+
+/**
+ * Open-loop load for one endpoint: requests are scheduled at a fixed rate regardless of responses,
+ * and latency is measured from the scheduled send time so queueing shows up in the percentiles.
+ */
+class EndpointLoad {
+
+    private final String name;
+    private final BiFunction<WebClient, Long, WebClient.RequestHeadersSpec<?>> request;
+    private final Histogram latency = new ConcurrentHistogram(TimeUnit.MINUTES.toNanos(1), 3);
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private long elapsedNanos;
+
+    EndpointLoad(String name, BiFunction<WebClient, Long, WebClient.RequestHeadersSpec<?>> request) {
+        this.name = name;
+        this.request = request;
+    }
+
+    static EndpointLoad get(String name, LongFunction<String> uri) {
+        return new EndpointLoad(name, (client, i) -> client.get().uri(uri.apply(i)));
+    }
+
+    String name() {
+        return name;
+    }
+
+    void run(WebClient client, int rps, Duration duration, int maxInFlight, boolean record) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rps;
+        long requests = duration.toNanos() / intervalNanos;
+        long start = System.nanoTime();
+
+        // first tick at start, so tick i is due at start + i * interval
+        Flux.interval(Duration.ZERO, Duration.ofNanos(intervalNanos))
+                .take(requests)
+                .onBackpressureDrop(i -> {
+                    if (record) {
+                        errors.incrementAndGet();
+                    }
+                })
+                .flatMap(i -> {
+                    long scheduledAt = start + i * intervalNanos;
+                    return request.apply(client, i)
+                            .retrieve()
+                            .toBodilessEntity()
+                            .doOnSuccess(response -> {
+                                if (record) {
+                                    latency.recordValue(Math.max(0, System.nanoTime() - scheduledAt));
+                                    completed.incrementAndGet();
+                                }
+                            })
+                            .onErrorResume(err -> {
+                                if (record) {
+                                    errors.incrementAndGet();
+                                }
+                                return Mono.empty();
+                            });
+                }, maxInFlight)
+                .blockLast();
+
+        if (record) {
+            elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+    String report() {
+        double seconds = elapsedNanos / 1e9;
+        long total = completed.get() + errors.get();
+        return "%-14s %8d %7d %6.2f%% %9.1f %8.2f %8.2f %8.2f %8.2f %8.2f".formatted(
+                name,
+                total,
+                errors.get(),
+                total == 0 ? 0.0 : errors.get() * 100.0 / total,
+                seconds == 0 ? 0.0 : completed.get() / seconds,
+                millis(latency.getValueAtPercentile(50)),
+                millis(latency.getValueAtPercentile(90)),
+                millis(latency.getValueAtPercentile(99)),
+                millis(latency.getValueAtPercentile(99.9)),
+                millis(latency.getMaxValue()));
+    }
+
+    static String header() {
+        return "%-14s %8s %7s %7s %9s %8s %8s %8s %8s %8s".formatted(
+                "endpoint", "requests", "errors", "err%", "req/s", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms");
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
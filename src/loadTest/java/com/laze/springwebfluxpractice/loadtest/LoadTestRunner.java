@@ -0,0 +1,192 @@
+package com.laze.springwebfluxpractice.loadtest;
+
+import com.laze.springwebfluxpractice.SpringWebfluxPracticeApplication;
+import com.laze.springwebfluxpractice.dto.PostR2dbcCreateRequest;
+import com.laze.springwebfluxpractice.dto.UserCreateRequest;
+import com.laze.springwebfluxpractice.dto.UserUpdateRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Boots the application against in-process stand-ins (H2 over R2DBC, embedded Redis, stub post upstream),
+ * seeds data, then drives each endpoint at a fixed rate and prints latency percentiles, throughput and errors.
+ *
+ * Settings (system properties): loadtest.rps, loadtest.duration, loadtest.warmup, loadtest.users,
+ * loadtest.postsPerUser, loadtest.maxInFlight, loadtest.endpoints, loadtest.routing.
+ *
+ * loadtest.routing picks how /users and /r2dbc/posts are served: annotated (controllers, default), functional
+ * (RouterFunctions on the same paths) or compare (functional under /fn, each endpoint run in both styles
+ * back to back, reported as name and fn.name).
+ */
+@Slf4j
+public class LoadTestRunner {
+
+    private static final String FUNCTIONAL_PREFIX = "/fn";
+
+    public static void main(String[] args) throws IOException {
+        int rps = Integer.getInteger("loadtest.rps", 200);
+        Duration duration = DurationStyle.detectAndParse(System.getProperty("loadtest.duration", "20s"));
+        Duration warmup = DurationStyle.detectAndParse(System.getProperty("loadtest.warmup", "5s"));
+        int users = Integer.getInteger("loadtest.users", 1000);
+        int postsPerUser = Integer.getInteger("loadtest.postsPerUser", 10);
+        int maxInFlight = Integer.getInteger("loadtest.maxInFlight", 512);
+        String routing = System.getProperty("loadtest.routing", "annotated");
+
+        int redisPort = freePort();
+        RedisServer redis = new RedisServer(redisPort);
+        redis.start();
+        StubPostServer postUpstream = new StubPostServer(Duration.ofMillis(5));
+
+        Map<String, Object> properties = new HashMap<>(Map.of(
+                "spring.data.redis.port", redisPort,
+                "app.post-client.base-url", postUpstream.baseUrl()));
+        properties.putAll(routingProperties(routing));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringWebfluxPracticeApplication.class)
+                .profiles("loadtest")
+                .properties(properties)
+                .run(args);
+
+        try {
+            int port = ((ReactiveWebServerApplicationContext) context).getWebServer().getPort();
+            WebClient client = WebClient.builder()
+                    .baseUrl("http://127.0.0.1:%d".formatted(port))
+                    .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(16 * 1024 * 1024))
+                    .build();
+
+            seed(client, users, postsPerUser);
+
+            List<EndpointLoad> loads = selectEndpoints(endpoints(users, ""));
+            if (routing.equals("compare")) {
+                Map<String, EndpointLoad> functional = endpoints(users, FUNCTIONAL_PREFIX);
+                loads = loads.stream()
+                        .flatMap(load -> Stream.concat(Stream.of(load), Stream.ofNullable(functional.get("fn." + load.name()))))
+                        .toList();
+            }
+            log.info("Running {} at {} req/s for {} (warmup {}, routing {})",
+                    loads.stream().map(EndpointLoad::name).toList(), rps, duration, warmup, routing);
+            for (EndpointLoad load : loads) {
+                load.run(client, rps, warmup, maxInFlight, false);
+                load.run(client, rps, duration, maxInFlight, true);
+            }
+
+            System.out.println();
+            System.out.println(EndpointLoad.header());
+            loads.forEach(load -> System.out.println(load.report()));
+        } finally {
+            context.close();
+            postUpstream.stop();
+            redis.stop();
+        }
+    }
+
+    private static Map<String, Object> routingProperties(String routing) {
+        return switch (routing) {
+            case "annotated" -> Map.of();
+            case "functional" -> Map.of(
+                    "app.routing.functional.users", true,
+                    "app.routing.functional.posts", true);
+            case "compare" -> Map.of(
+                    "app.routing.functional.users", true,
+                    "app.routing.functional.posts", true,
+                    "app.routing.functional.path-prefix", FUNCTIONAL_PREFIX);
+            default -> throw new IllegalArgumentException(
+                    "unknown routing %s, expected annotated, functional or compare".formatted(routing));
+        };
+    }
+
+    // prefix "" for the paths as served by default; otherwise the functional routes mounted under it
+    private static Map<String, EndpointLoad> endpoints(int users, String prefix) {
+        String names = prefix.isEmpty() ? "" : "fn.";
+        Map<String, EndpointLoad> endpoints = new LinkedHashMap<>();
+        endpoints.put(names + "users", EndpointLoad.get(names + "users", i -> prefix + "/users"));
+        endpoints.put(names + "userById", EndpointLoad.get(names + "userById", i -> prefix + "/users/%d".formatted(randomId(users))));
+        endpoints.put(names + "userPosts", EndpointLoad.get(names + "userPosts", i -> prefix + "/users/%d/posts".formatted(randomId(users))));
+        endpoints.put(names + "userPostsPage", EndpointLoad.get(names + "userPostsPage", i -> prefix + "/users/%d/posts/page?limit=5".formatted(randomId(users))));
+        endpoints.put(names + "posts", EndpointLoad.get(names + "posts", i -> prefix + "/r2dbc/posts"));
+        if (prefix.isEmpty()) {
+            // PostController has no functional version
+            endpoints.put("postSearch", EndpointLoad.get("postSearch", i -> "/posts/search?ids=" + LongStream.range(0, 20)
+                    .mapToObj(n -> String.valueOf(randomId(200)))
+                    .collect(Collectors.joining(","))));
+        }
+        // a small hot set so write coalescing (app.cache.user.write-mode) is visible
+        endpoints.put(names + "userUpdate", new EndpointLoad(names + "userUpdate", (client, i) -> client.put()
+                .uri(prefix + "/users/%d".formatted(randomId(Math.min(users, 50))))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserUpdateRequest("user" + i, "user%d@email.com".formatted(i)))));
+        return endpoints;
+    }
+
+    private static List<EndpointLoad> selectEndpoints(Map<String, EndpointLoad> endpoints) {
+        String selected = System.getProperty("loadtest.endpoints");
+        if (selected == null || selected.isBlank()) {
+            return List.copyOf(endpoints.values());
+        }
+        return Arrays.stream(selected.split(","))
+                .map(String::trim)
+                .map(name -> {
+                    EndpointLoad load = endpoints.get(name);
+                    if (load == null) {
+                        throw new IllegalArgumentException("unknown endpoint %s, expected one of %s".formatted(name, endpoints.keySet()));
+                    }
+                    return load;
+                })
+                .toList();
+    }
+
+    private static void seed(WebClient client, int users, int postsPerUser) {
+        log.info("Seeding {} users and {} posts", users, (long) users * postsPerUser);
+        Flux.range(1, users)
+                .flatMap(i -> client.post().uri("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(new UserCreateRequest("user" + i, "user%d@email.com".formatted(i)))
+                        .retrieve()
+                        .toBodilessEntity(), 32)
+                .blockLast();
+
+        Flux<PostR2dbcCreateRequest> posts = Flux.range(0, users * postsPerUser)
+                .map(i -> {
+                    var request = new PostR2dbcCreateRequest();
+                    request.setUserId((long) (i / postsPerUser) + 1);
+                    request.setTitle("title" + i);
+                    request.setContent("content " + i);
+                    return request;
+                });
+        client.post().uri("/r2dbc/posts/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(posts, PostR2dbcCreateRequest.class)
+                .retrieve()
+                .toBodilessEntity()
+                .block();
+    }
+
+    private static long randomId(int bound) {
+        return ThreadLocalRandom.current().nextLong(1, bound + 1);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
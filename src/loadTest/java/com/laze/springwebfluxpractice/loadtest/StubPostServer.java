@@ -0,0 +1,38 @@
+package com.laze.springwebfluxpractice.loadtest;
+
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+
+/**
+ * Stand-in for the post upstream PostClient calls: GET /posts/{id} with a fixed latency.
+ */
+class StubPostServer {
+
+    private final DisposableServer server;
+
+    StubPostServer(Duration latency) {
+        this.server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .route(routes -> routes.get("/posts/{id}", (request, response) -> {
+                    String id = request.param("id");
+                    return response.header("Content-Type", "application/json")
+                            .header("Cache-Control", "max-age=5")
+                            .header("ETag", "\"%s\"".formatted(id))
+                            .sendString(Mono.just("{\"id\":\"%s\",\"content\":\"stub content %s\"}".formatted(id, id))
+                                    .delayElement(latency));
+                }))
+                .bindNow();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:%d".formatted(server.port());
+    }
+
+    void stop() {
+        server.disposeNow();
+    }
+}
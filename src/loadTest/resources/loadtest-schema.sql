@@ -0,0 +1,19 @@
+CREATE TABLE IF NOT EXISTS users (
+    id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name       VARCHAR(128),
+    email      VARCHAR(255),
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    version    BIGINT NOT NULL DEFAULT 0
+);
+CREATE INDEX IF NOT EXISTS idx_users_name ON users (name);
+
+CREATE TABLE IF NOT EXISTS posts (
+    id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id    BIGINT,
+    title      VARCHAR(255),
+    content    VARCHAR(4000),
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_posts_user_id ON posts (user_id, id);
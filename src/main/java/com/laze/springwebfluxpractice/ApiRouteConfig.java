@@ -0,0 +1,64 @@
+package com.laze.springwebfluxpractice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laze.springwebfluxpractice.config.RoutingProperties;
+import com.laze.springwebfluxpractice.handler.PostR2dbcHandler;
+import com.laze.springwebfluxpractice.handler.UserHandler;
+import com.laze.springwebfluxpractice.service.PostServiceR2dbc;
+import com.laze.springwebfluxpractice.service.UserService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * RouterFunction versions of UserController and PostR2dbcController, switched on per API with
+ * app.routing.functional.users / .posts. RouterFunctionMapping is consulted before the annotation mappings,
+ * so on the same paths these routes win. Literal segments are listed before /{id} because the first match wins.
+ */
+@Configuration
+public class ApiRouteConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.routing.functional.users", havingValue = "true")
+    public RouterFunction<ServerResponse> userRoutes(UserService userService,
+                                                     PostServiceR2dbc postServiceR2dbc,
+                                                     ObjectMapper objectMapper,
+                                                     RoutingProperties properties) {
+        var handler = new UserHandler(userService, postServiceR2dbc, objectMapper);
+        String users = properties.getFunctional().getPathPrefix() + "/users";
+        return RouterFunctions.route()
+                .GET(users, handler::findAll)
+                .POST(users, handler::create)
+                .GET(users + "/page", handler::findPage)
+                .GET(users + "/stream", handler::stream)
+                .GET(users + "/batch", handler::findAllByIds)
+                .DELETE(users + "/search", handler::deleteByName)
+                .GET(users + "/{id}", handler::findById)
+                .PUT(users + "/{id}", handler::update)
+                .DELETE(users + "/{id}", handler::deleteById)
+                .GET(users + "/{id}/posts", handler::findPosts)
+                .GET(users + "/{id}/posts/page", handler::findPostPage)
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.routing.functional.posts", havingValue = "true")
+    public RouterFunction<ServerResponse> postR2dbcRoutes(PostServiceR2dbc postServiceR2dbc,
+                                                          ObjectMapper objectMapper,
+                                                          RoutingProperties properties) {
+        var handler = new PostR2dbcHandler(postServiceR2dbc, objectMapper);
+        String posts = properties.getFunctional().getPathPrefix() + "/r2dbc/posts";
+        return RouterFunctions.route()
+                .GET(posts, handler::findAll)
+                .POST(posts, handler::create)
+                .POST(posts + "/bulk", handler::createAll)
+                .GET(posts + "/page", handler::findPage)
+                .GET(posts + "/stream", handler::stream)
+                .GET(posts + "/{id}", handler::findById)
+                .DELETE(posts + "/{id}", handler::deleteById)
+                .build();
+    }
+}
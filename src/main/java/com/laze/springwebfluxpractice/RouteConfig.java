@@ -17,6 +17,7 @@ public class RouteConfig {
     public RouterFunction<ServerResponse> route() {
         return RouterFunctions.route()
                 .GET("/hello-functional", sampleHandler::getString)
+                .GET("/hello-functional/blocking", sampleHandler::getBlocking)
                 .build();
     }
 }
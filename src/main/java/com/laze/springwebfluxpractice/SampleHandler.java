@@ -1,14 +1,47 @@
 package com.laze.springwebfluxpractice;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
 
 @Component
 public class SampleHandler {
 
+    private static final Duration MAX_BLOCKING_DELAY = Duration.ofSeconds(5);
+
+    private final Scheduler blockingScheduler;
+
+    public SampleHandler(@Qualifier("blockingScheduler") Scheduler blockingScheduler) {
+        this.blockingScheduler = blockingScheduler;
+    }
+
     public Mono<ServerResponse> getString(ServerRequest request) {
         return ServerResponse.ok().bodyValue("hello, functional endpoint");
     }
+
+    // stands in for a blocking client call; the handler thread (event loop) is released right away
+    public Mono<ServerResponse> getBlocking(ServerRequest request) {
+        long delayMillis = Math.max(0, Math.min(MAX_BLOCKING_DELAY.toMillis(),
+                request.queryParam("delayMs").map(SampleHandler::parseDelay).orElse(100L)));
+        return Mono.fromCallable(() -> {
+                    Thread.sleep(delayMillis);
+                    return "blocked %dms on %s".formatted(delayMillis, Thread.currentThread());
+                })
+                .subscribeOn(blockingScheduler)
+                .flatMap(body -> ServerResponse.ok().bodyValue(body));
+    }
+
+    private static long parseDelay(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("invalid delayMs: " + value);
+        }
+    }
 }
@@ -0,0 +1,36 @@
+package com.laze.springwebfluxpractice.cache;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.laze.springwebfluxpractice.dto.PostResponse;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedPost {
+    private PostResponse body;
+    private String etag;
+    // epoch millis
+    private long freshUntil;
+    private long staleUntil;
+    private long expiresAt;
+
+    @JsonIgnore
+    public boolean isFresh(long now) {
+        return now < freshUntil;
+    }
+
+    @JsonIgnore
+    public boolean isRevalidatable(long now) {
+        return now < staleUntil;
+    }
+
+    @JsonIgnore
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+}
@@ -0,0 +1,120 @@
+package com.laze.springwebfluxpractice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.laze.springwebfluxpractice.config.PostClientProperties;
+import com.laze.springwebfluxpractice.dto.PostResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory (optionally Redis backed) store of upstream post responses with HTTP freshness metadata.
+ * Entries outlive their freshness so they can be served stale while revalidating or when the upstream fails.
+ */
+@Component
+public class PostResponseCache {
+
+    private static final Pattern MAX_AGE = Pattern.compile("(?:^|[,\\s])max-age=(\\d+)");
+    private static final Pattern STALE_WHILE_REVALIDATE = Pattern.compile("stale-while-revalidate=(\\d+)");
+
+    private final ReactiveRedisTemplate<String, CachedPost> reactiveCachedPostTemplate;
+    private final PostClientProperties.Cache properties;
+    private final Cache<Long, CachedPost> localCache;
+
+    public PostResponseCache(ReactiveRedisTemplate<String, CachedPost> reactiveCachedPostTemplate,
+                             PostClientProperties postClientProperties,
+                             MeterRegistry meterRegistry) {
+        this.reactiveCachedPostTemplate = reactiveCachedPostTemplate;
+        this.properties = postClientProperties.getCache();
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getStaleIfError())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "posts.client");
+    }
+
+    private String getPostCacheKey(Long id) {
+        return "post-client:posts:%d".formatted(id);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public Mono<CachedPost> get(Long id) {
+        CachedPost cached = localCache.getIfPresent(id);
+        if (cached != null || !properties.isRedisEnabled()) {
+            return Mono.justOrEmpty(cached);
+        }
+
+        return reactiveCachedPostTemplate.opsForValue()
+                .get(getPostCacheKey(id))
+                .doOnNext(entry -> localCache.put(id, entry));
+    }
+
+    public Mono<Void> put(Long id, CachedPost entry) {
+        long retainMillis = entry.getExpiresAt() - System.currentTimeMillis();
+        if (retainMillis <= 0) {
+            return Mono.empty();
+        }
+
+        localCache.put(id, entry);
+        if (!properties.isRedisEnabled()) {
+            return Mono.empty();
+        }
+        return reactiveCachedPostTemplate.opsForValue()
+                .set(getPostCacheKey(id), entry, Duration.ofMillis(retainMillis))
+                .then();
+    }
+
+    // derives freshness from Cache-Control, falling back to the configured defaults
+    public CachedPost entryOf(PostResponse body, HttpHeaders headers) {
+        long now = System.currentTimeMillis();
+        String cacheControl = headers.getCacheControl();
+        long freshMillis = properties.getDefaultTtl().toMillis();
+        long staleMillis = properties.getStaleWhileRevalidate().toMillis();
+
+        if (cacheControl != null) {
+            if (cacheControl.contains("no-store")) {
+                return CachedPost.builder().body(body).expiresAt(now).build();
+            }
+            Matcher maxAge = MAX_AGE.matcher(cacheControl);
+            if (maxAge.find()) {
+                freshMillis = Duration.ofSeconds(Long.parseLong(maxAge.group(1))).toMillis();
+            }
+            Matcher swr = STALE_WHILE_REVALIDATE.matcher(cacheControl);
+            if (swr.find()) {
+                staleMillis = Duration.ofSeconds(Long.parseLong(swr.group(1))).toMillis();
+            }
+            if (cacheControl.contains("no-cache")) {
+                freshMillis = 0;
+                staleMillis = 0;
+            }
+        }
+
+        return CachedPost.builder()
+                .body(body)
+                .etag(headers.getETag())
+                .freshUntil(now + freshMillis)
+                .staleUntil(now + freshMillis + staleMillis)
+                .expiresAt(now + Math.max(freshMillis + staleMillis, properties.getStaleIfError().toMillis()))
+                .build();
+    }
+
+    // 304 Not Modified: keep the body, take the new freshness
+    public CachedPost revalidated(CachedPost previous, HttpHeaders headers) {
+        var refreshed = entryOf(previous.getBody(), headers);
+        return refreshed.getEtag() == null
+                ? refreshed.toBuilder().etag(previous.getEtag()).build()
+                : refreshed;
+    }
+}
@@ -0,0 +1,41 @@
+package com.laze.springwebfluxpractice.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * XFetch style early refresh: the closer an entry is to expiry (relative to how long a reload takes),
+ * the more likely a read triggers a background reload before the TTL ends.
+ */
+public class ProbabilisticEarlyRefresh {
+
+    private final double beta;
+    private volatile long recomputeNanos;
+
+    public ProbabilisticEarlyRefresh(double beta) {
+        this.beta = beta;
+    }
+
+    public boolean shouldRefresh(Duration remaining) {
+        if (remaining.isNegative() || remaining.isZero()) {
+            return false;
+        }
+
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        double gap = -recomputeNanos * beta * Math.log(random);
+        return gap >= remaining.toNanos();
+    }
+
+    public <T> Mono<T> recordRecompute(Mono<T> load) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return load.doOnTerminate(() -> {
+                long elapsed = System.nanoTime() - start;
+                long previous = recomputeNanos;
+                recomputeNanos = previous == 0 ? elapsed : (previous * 7 + elapsed) / 8;
+            });
+        });
+    }
+}
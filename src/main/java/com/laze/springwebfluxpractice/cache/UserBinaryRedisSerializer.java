@@ -0,0 +1,250 @@
+package com.laze.springwebfluxpractice.cache;
+
+import com.laze.springwebfluxpractice.repository.User;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Versioned binary encoding of cached {@link User}s:
+ * <pre>
+ * [magic][version][flags] then, deflated when flags has COMPRESSED ([varint raw length][deflate data]):
+ * [presence bits][id: int64][name: varint length + utf8][email: varint length + utf8][createdAt, updatedAt: epoch micros int64][version: int64]
+ * </pre>
+ * Values that start with '{' are JSON written by the previous serializer and are read through {@code jsonFallback}.
+ */
+public class UserBinaryRedisSerializer implements RedisSerializer<User> {
+
+    static final byte MAGIC = (byte) 0xB5;
+    static final byte VERSION_1 = 1;
+
+    private static final int FLAG_COMPRESSED = 1;
+
+    private static final int HAS_ID = 1;
+    private static final int HAS_NAME = 1 << 1;
+    private static final int HAS_EMAIL = 1 << 2;
+    private static final int HAS_CREATED_AT = 1 << 3;
+    private static final int HAS_UPDATED_AT = 1 << 4;
+    private static final int HAS_VERSION = 1 << 5;
+
+    private final RedisSerializer<User> jsonFallback;
+    private final int compressionThreshold;
+
+    public UserBinaryRedisSerializer(RedisSerializer<User> jsonFallback, int compressionThreshold) {
+        this.jsonFallback = jsonFallback;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(User user) throws SerializationException {
+        if (user == null) {
+            return null;
+        }
+
+        byte[] name = user.getName() == null ? null : user.getName().getBytes(StandardCharsets.UTF_8);
+        byte[] email = user.getEmail() == null ? null : user.getEmail().getBytes(StandardCharsets.UTF_8);
+
+        int presence = (user.getId() != null ? HAS_ID : 0)
+                | (name != null ? HAS_NAME : 0)
+                | (email != null ? HAS_EMAIL : 0)
+                | (user.getCreatedAt() != null ? HAS_CREATED_AT : 0)
+                | (user.getUpdatedAt() != null ? HAS_UPDATED_AT : 0)
+                | (user.getVersion() != null ? HAS_VERSION : 0);
+
+        int size = 1
+                + (user.getId() != null ? Long.BYTES : 0)
+                + (name != null ? varIntSize(name.length) + name.length : 0)
+                + (email != null ? varIntSize(email.length) + email.length : 0)
+                + (user.getCreatedAt() != null ? Long.BYTES : 0)
+                + (user.getUpdatedAt() != null ? Long.BYTES : 0)
+                + (user.getVersion() != null ? Long.BYTES : 0);
+
+        ByteBuffer payload = ByteBuffer.allocate(size);
+        payload.put((byte) presence);
+        if (user.getId() != null) {
+            payload.putLong(user.getId());
+        }
+        if (name != null) {
+            putBytes(payload, name);
+        }
+        if (email != null) {
+            putBytes(payload, email);
+        }
+        if (user.getCreatedAt() != null) {
+            payload.putLong(toEpochMicros(user.getCreatedAt()));
+        }
+        if (user.getUpdatedAt() != null) {
+            payload.putLong(toEpochMicros(user.getUpdatedAt()));
+        }
+        if (user.getVersion() != null) {
+            payload.putLong(user.getVersion());
+        }
+
+        return size > compressionThreshold ? compressed(payload.array()) : framed(payload.array(), 0);
+    }
+
+    @Override
+    public User deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] == '{') {
+            return jsonFallback.deserialize(bytes);
+        }
+        if (bytes.length < 3 || bytes[0] != MAGIC) {
+            throw new SerializationException("Unknown cached user encoding");
+        }
+        if (bytes[1] != VERSION_1) {
+            throw new SerializationException("Unsupported cached user version %d".formatted(bytes[1]));
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 3, bytes.length - 3);
+        if ((bytes[2] & FLAG_COMPRESSED) != 0) {
+            buffer = ByteBuffer.wrap(inflate(buffer));
+        }
+        return read(buffer);
+    }
+
+    private User read(ByteBuffer buffer) {
+        int presence = buffer.get();
+        var user = new User();
+        if ((presence & HAS_ID) != 0) {
+            user.setId(buffer.getLong());
+        }
+        if ((presence & HAS_NAME) != 0) {
+            user.setName(getString(buffer));
+        }
+        if ((presence & HAS_EMAIL) != 0) {
+            user.setEmail(getString(buffer));
+        }
+        if ((presence & HAS_CREATED_AT) != 0) {
+            user.setCreatedAt(fromEpochMicros(buffer.getLong()));
+        }
+        if ((presence & HAS_UPDATED_AT) != 0) {
+            user.setUpdatedAt(fromEpochMicros(buffer.getLong()));
+        }
+        if ((presence & HAS_VERSION) != 0) {
+            user.setVersion(buffer.getLong());
+        }
+        return user;
+    }
+
+    private static byte[] framed(byte[] payload, int flags) {
+        byte[] out = new byte[payload.length + 3];
+        out[0] = MAGIC;
+        out[1] = VERSION_1;
+        out[2] = (byte) flags;
+        System.arraycopy(payload, 0, out, 3, payload.length);
+        return out;
+    }
+
+    private static byte[] compressed(byte[] payload) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            var out = new ByteArrayOutputStream(payload.length / 2 + 16);
+            out.write(MAGIC);
+            out.write(VERSION_1);
+            out.write(FLAG_COMPRESSED);
+            writeVarInt(out, payload.length);
+            byte[] chunk = new byte[512];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(ByteBuffer buffer) {
+        int rawLength = getVarInt(buffer);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            byte[] raw = new byte[rawLength];
+            int read = 0;
+            while (read < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, read, rawLength - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != rawLength) {
+                throw new SerializationException("Truncated cached user payload");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new SerializationException("Corrupt cached user payload", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static long toEpochMicros(LocalDateTime dateTime) {
+        return ChronoUnit.MICROS.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC), dateTime);
+    }
+
+    private static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        int value = bytes.length;
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = getVarInt(buffer);
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int getVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            size++;
+            value >>>= 7;
+        }
+        return size;
+    }
+}
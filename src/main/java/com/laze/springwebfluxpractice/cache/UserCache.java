@@ -0,0 +1,226 @@
+package com.laze.springwebfluxpractice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.laze.springwebfluxpractice.config.UserCacheProperties;
+import com.laze.springwebfluxpractice.repository.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * L1(in-process, Caffeine) + L2(Redis) user cache.
+ * L1 is optional; when enabled, evictions are broadcast over Redis pub/sub so every node drops its local copy.
+ * Messages are {@code <nodeId>:<userId>}; a node ignores its own, so a write keeps the L1 copy it just stored.
+ * L1 entries remember when the L2 copy expires, so early refresh sees the real remaining TTL on L1 hits.
+ */
+@Component
+@Slf4j
+public class UserCache implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    private final ReactiveRedisTemplate<String, User> reactiveUserTemplate;
+    private final ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+    private final UserCacheProperties properties;
+    private final Cache<Long, NearEntry> nearCache;
+    private final ProbabilisticEarlyRefresh earlyRefresh;
+    private final String nodeId = UUID.randomUUID().toString();
+    private Disposable invalidationSubscription;
+
+    public UserCache(ReactiveRedisTemplate<String, User> reactiveUserTemplate,
+                     ReactiveRedisTemplate<String, String> reactiveRedisTemplate,
+                     UserCacheProperties properties,
+                     MeterRegistry meterRegistry) {
+        this.reactiveUserTemplate = reactiveUserTemplate;
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.properties = properties;
+
+        var near = properties.getNear();
+        if (near.isEnabled()) {
+            this.nearCache = Caffeine.newBuilder()
+                    .maximumSize(near.getMaximumSize())
+                    .expireAfterWrite(near.getTtl())
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, nearCache, "users.near");
+        } else {
+            this.nearCache = null;
+        }
+
+        var early = properties.getEarlyRefresh();
+        this.earlyRefresh = early.isEnabled() ? new ProbabilisticEarlyRefresh(early.getBeta()) : null;
+    }
+
+    public static String getUserCacheKey(Long id) {
+        return "users:%d".formatted(id);
+    }
+
+    public ProbabilisticEarlyRefresh getEarlyRefresh() {
+        return earlyRefresh;
+    }
+
+    public Mono<User> get(Long id) {
+        if (nearCache != null) {
+            NearEntry cached = nearCache.getIfPresent(id);
+            if (cached != null) {
+                return Mono.just(cached.user());
+            }
+        }
+
+        return reactiveUserTemplate.opsForValue()
+                .get(getUserCacheKey(id))
+                .doOnNext(user -> putNear(user, NearEntry.UNKNOWN_EXPIRY));
+    }
+
+    // an L1 copy read without its L2 expiry falls through once to learn it
+    public Mono<Tuple2<User, Duration>> getWithRemainingTtl(Long id) {
+        if (nearCache != null) {
+            NearEntry cached = nearCache.getIfPresent(id);
+            if (cached != null && cached.expiresAt() != NearEntry.UNKNOWN_EXPIRY) {
+                long remaining = Math.max(0, cached.expiresAt() - System.nanoTime());
+                return Mono.just(Tuples.of(cached.user(), Duration.ofNanos(remaining)));
+            }
+        }
+
+        var key = getUserCacheKey(id);
+        return Mono.zip(reactiveUserTemplate.opsForValue().get(key), reactiveUserTemplate.getExpire(key))
+                .doOnNext(t -> putNear(t.getT1(), t.getT2().isNegative() || t.getT2().isZero()
+                        ? NearEntry.UNKNOWN_EXPIRY
+                        : System.nanoTime() + t.getT2().toNanos()));
+    }
+
+    public Mono<Map<Long, User>> getAll(Collection<Long> ids) {
+        Map<Long, User> found = new HashMap<>();
+        List<Long> remoteIds = new ArrayList<>();
+        for (Long id : ids) {
+            NearEntry cached = nearCache == null ? null : nearCache.getIfPresent(id);
+            if (cached != null) {
+                found.put(id, cached.user());
+            } else {
+                remoteIds.add(id);
+            }
+        }
+
+        if (remoteIds.isEmpty()) {
+            return Mono.just(found);
+        }
+
+        return reactiveUserTemplate.opsForValue()
+                .multiGet(remoteIds.stream().map(UserCache::getUserCacheKey).toList())
+                .map(values -> {
+                    for (int i = 0; i < values.size(); i++) {
+                        User user = values.get(i);
+                        if (user != null) {
+                            found.put(remoteIds.get(i), user);
+                            putNear(user, NearEntry.UNKNOWN_EXPIRY);
+                        }
+                    }
+                    return found;
+                })
+                .defaultIfEmpty(found);
+    }
+
+    // commands issued without waiting on each other are pipelined on the shared lettuce connection
+    public Mono<Void> putAll(Collection<User> users) {
+        return Flux.fromIterable(users)
+                .flatMap(this::put)
+                .then();
+    }
+
+    public Mono<Boolean> put(User user) {
+        return Mono.defer(() -> {
+            long expiresAt = System.nanoTime() + properties.getTtl().toNanos();
+            return reactiveUserTemplate.opsForValue()
+                    .set(getUserCacheKey(user.getId()), user, properties.getTtl())
+                    .doOnSuccess(i -> putNear(user, expiresAt));
+        });
+    }
+
+    // replaces the cached value and tells the other nodes to drop their near copy
+    public Mono<Void> write(User user) {
+        return put(user)
+                .then(publishInvalidation(user.getId()));
+    }
+
+    public Mono<Void> evict(Long id) {
+        return reactiveUserTemplate.unlink(getUserCacheKey(id))
+                .then(Mono.fromRunnable(() -> invalidateNear(id)))
+                .then(publishInvalidation(id));
+    }
+
+    private Mono<Void> publishInvalidation(Long id) {
+        if (nearCache == null) {
+            return Mono.empty();
+        }
+
+        return reactiveRedisTemplate.convertAndSend(properties.getNear().getInvalidationChannel(), nodeId + ":" + id)
+                .then();
+    }
+
+    private void putNear(User user, long expiresAt) {
+        if (nearCache != null) {
+            nearCache.put(user.getId(), new NearEntry(user, expiresAt));
+        }
+    }
+
+    // messages without a node id count as foreign
+    private void onInvalidation(String message) {
+        int separator = message.lastIndexOf(':');
+        if (separator == nodeId.length() && message.startsWith(nodeId)) {
+            return;
+        }
+        invalidateNear(Long.valueOf(message.substring(separator + 1)));
+    }
+
+    private void invalidateNear(Long id) {
+        if (nearCache != null) {
+            nearCache.invalidate(id);
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (nearCache == null) {
+            return;
+        }
+
+        invalidationSubscription = reactiveRedisTemplate
+                .listenToChannel(properties.getNear().getInvalidationChannel())
+                .map(ReactiveSubscription.Message::getMessage)
+                .doOnNext(this::onInvalidation)
+                .doOnError(err -> log.error("User cache invalidation listener failed: {}", err.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    @Override
+    public void destroy() {
+        if (invalidationSubscription != null) {
+            invalidationSubscription.dispose();
+        }
+    }
+
+    // expiresAt is a System.nanoTime() deadline of the L2 copy
+    private record NearEntry(User user, long expiresAt) {
+        static final long UNKNOWN_EXPIRY = Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,76 @@
+package com.laze.springwebfluxpractice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.laze.springwebfluxpractice.config.PostProperties;
+import com.laze.springwebfluxpractice.repository.Post;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-process cache behind GET /users/{id}/posts: the ascending post ids of each user and the post bodies
+ * (without the author, which comes from {@link UserCache}). Kept current by PostServiceR2dbc writes on this
+ * node; other nodes catch up within the ttl.
+ */
+@Component
+public class UserPostCache {
+
+    private final Cache<Long, long[]> postIdsByUser;
+    private final Cache<Long, Post> posts;
+
+    public UserPostCache(PostProperties postProperties, MeterRegistry meterRegistry) {
+        var properties = postProperties.getUserPosts();
+        this.postIdsByUser = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxUsers())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        this.posts = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxPosts())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, postIdsByUser, "posts.by-user.ids");
+        CaffeineCacheMetrics.monitor(meterRegistry, posts, "posts.by-user.bodies");
+    }
+
+    public long[] getPostIds(Long userId) {
+        return postIdsByUser.getIfPresent(userId);
+    }
+
+    public void putPostIds(Long userId, long[] postIds) {
+        postIdsByUser.put(userId, postIds);
+    }
+
+    public Map<Long, Post> getAll(Collection<Long> ids) {
+        Map<Long, Post> found = new HashMap<>();
+        for (Long id : ids) {
+            Post post = posts.getIfPresent(id);
+            if (post != null) {
+                found.put(id, post);
+            }
+        }
+        return found;
+    }
+
+    public Post get(Long id) {
+        return posts.getIfPresent(id);
+    }
+
+    public void putAll(Collection<Post> loaded) {
+        loaded.forEach(post -> posts.put(post.getId(), post));
+    }
+
+    public void invalidateUser(Long userId) {
+        postIdsByUser.invalidate(userId);
+    }
+
+    public void invalidatePost(Long id) {
+        posts.invalidate(id);
+    }
+}
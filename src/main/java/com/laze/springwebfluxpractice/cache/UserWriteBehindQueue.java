@@ -0,0 +1,118 @@
+package com.laze.springwebfluxpractice.cache;
+
+import com.laze.springwebfluxpractice.config.UserCacheProperties;
+import com.laze.springwebfluxpractice.repository.User;
+import com.laze.springwebfluxpractice.repository.UserR2dbcRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pending user writes for {@link UserCacheProperties.WriteMode#WRITE_BEHIND}. Updates to the same id
+ * within one flush window are coalesced into a single UPDATE; whatever is pending is flushed on shutdown.
+ */
+@Component
+@Slf4j
+public class UserWriteBehindQueue implements DisposableBean {
+
+    private final ConcurrentHashMap<Long, User> pending = new ConcurrentHashMap<>();
+    private final UserR2dbcRepository userR2dbcRepository;
+    private final UserCacheProperties.WriteBehind properties;
+    private final Disposable flusher;
+    private final Counter enqueued;
+    private final Counter coalesced;
+    private final Counter flushed;
+    private final Counter failed;
+    private final Timer flushTimer;
+
+    public UserWriteBehindQueue(UserR2dbcRepository userR2dbcRepository,
+                                UserCacheProperties userCacheProperties,
+                                MeterRegistry meterRegistry) {
+        this.userR2dbcRepository = userR2dbcRepository;
+        this.properties = userCacheProperties.getWriteBehind();
+
+        this.enqueued = meterRegistry.counter("users.write-behind.enqueued");
+        this.coalesced = meterRegistry.counter("users.write-behind.coalesced");
+        this.flushed = meterRegistry.counter("users.write-behind.flushed");
+        this.failed = meterRegistry.counter("users.write-behind.failed");
+        this.flushTimer = Timer.builder("users.write-behind.flush").register(meterRegistry);
+        meterRegistry.gaugeMapSize("users.write-behind.pending", List.of(), pending);
+
+        this.flusher = userCacheProperties.getWriteMode() == UserCacheProperties.WriteMode.WRITE_BEHIND
+                ? Flux.interval(properties.getWindow())
+                        .onBackpressureDrop()
+                        .concatMap(tick -> flush())
+                        .subscribe()
+                : null;
+    }
+
+    public void enqueue(User user) {
+        enqueued.increment();
+        pending.merge(user.getId(), user, (queued, incoming) -> {
+            coalesced.increment();
+            return isNewer(queued, incoming) ? queued : incoming;
+        });
+    }
+
+    // enqueue order is not update order (the cache write before it completes asynchronously), so the
+    // version decides, and updatedAt when versions are off or equal
+    private static boolean isNewer(User user, User other) {
+        if (user.getVersion() != null && other.getVersion() != null && !user.getVersion().equals(other.getVersion())) {
+            return user.getVersion() > other.getVersion();
+        }
+        return user.getUpdatedAt() != null && other.getUpdatedAt() != null
+                && user.getUpdatedAt().isAfter(other.getUpdatedAt());
+    }
+
+    public void discard(Long id) {
+        pending.remove(id);
+    }
+
+    public Mono<Void> flush() {
+        List<User> batch = new ArrayList<>(pending.size());
+        for (Long id : pending.keySet()) {
+            User user = pending.remove(id);
+            if (user != null) {
+                batch.add(user);
+            }
+        }
+        if (batch.isEmpty()) {
+            return Mono.empty();
+        }
+
+        var sample = Timer.start();
+        return Flux.fromIterable(batch)
+                .flatMap(user -> userR2dbcRepository.writeBack(user.getId(), user.getName(), user.getEmail(), user.getVersion())
+                        .doOnSuccess(rows -> flushed.increment())
+                        .onErrorResume(err -> {
+                            failed.increment();
+                            log.error("Failed to write back user {}: {}", user.getId(), err.getMessage());
+                            return Mono.empty();
+                        }), properties.getConcurrency())
+                .then()
+                .doFinally(signal -> sample.stop(flushTimer));
+    }
+
+    @Override
+    public void destroy() {
+        if (flusher == null) {
+            return;
+        }
+
+        flusher.dispose();
+        flush().block(properties.getShutdownTimeout());
+        if (!pending.isEmpty()) {
+            log.error("{} user writes were not flushed before shutdown", pending.size());
+        }
+    }
+}
@@ -1,29 +1,145 @@
 package com.laze.springwebfluxpractice.client;
 
+import com.laze.springwebfluxpractice.cache.CachedPost;
+import com.laze.springwebfluxpractice.cache.PostResponseCache;
+import com.laze.springwebfluxpractice.cache.SingleFlight;
+import com.laze.springwebfluxpractice.config.PostClientProperties;
 import com.laze.springwebfluxpractice.dto.PostResponse;
-import lombok.RequiredArgsConstructor;
+import com.laze.springwebfluxpractice.support.StageMetrics;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.util.concurrent.TimeoutException;
 
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class PostClient {
+    private static final String RESILIENCE_INSTANCE = "postClient";
+
     private final WebClient webClient;
-    private final String url = "http://127.0.0.1:8090";
+    private final PostClientProperties properties;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Retry retry;
+    private final PostResponseCache postResponseCache;
+    private final SingleFlight<Long, CachedPost> revalidations = new SingleFlight<>();
+    private final StageMetrics stageMetrics;
+
+    public PostClient(WebClient webClient,
+                      PostClientProperties properties,
+                      PostResponseCache postResponseCache,
+                      CircuitBreakerRegistry circuitBreakerRegistry,
+                      BulkheadRegistry bulkheadRegistry,
+                      StageMetrics stageMetrics) {
+        this.webClient = webClient;
+        this.properties = properties;
+        this.postResponseCache = postResponseCache;
+        this.stageMetrics = stageMetrics;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(RESILIENCE_INSTANCE);
+        this.bulkhead = bulkheadRegistry.bulkhead(RESILIENCE_INSTANCE);
+
+        var retryProperties = properties.getRetry();
+        // Retry counts retries, not attempts
+        this.retry = Retry.backoff(Math.max(0, retryProperties.getMaxAttempts() - 1), retryProperties.getMinBackoff())
+                .maxBackoff(retryProperties.getMaxBackoff())
+                .jitter(retryProperties.getJitter())
+                .filter(PostClient::isRetryable)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
 
     // WebClient -> mvc("/posts/{id}")
 
     public Mono<PostResponse> getPost(Long id) {
-        String uriString = UriComponentsBuilder.fromHttpUrl(url)
-                .path("/posts/%d".formatted(id))
-                .buildAndExpand()
-                .toUriString();
-
-        return webClient.get()
-                .uri(uriString)
-                .retrieve()
-                .bodyToMono(PostResponse.class);
+        if (!postResponseCache.isEnabled()) {
+            return stageMetrics.timed(fetch(id, null).map(CachedPost::getBody), "post.client.get");
+        }
+
+        return stageMetrics.timed(postResponseCache.get(id)
+                .flatMap(entry -> serve(id, entry))
+                .switchIfEmpty(Mono.defer(() -> revalidate(id, null).map(CachedPost::getBody))), "post.client.get");
+    }
+
+    // last known response, used instead of a synthetic fallback when the upstream is down
+    public Mono<PostResponse> getStale(Long id) {
+        if (!postResponseCache.isEnabled()) {
+            return Mono.empty();
+        }
+
+        return postResponseCache.get(id)
+                .filter(entry -> !entry.isExpired(System.currentTimeMillis()))
+                .map(CachedPost::getBody);
+    }
+
+    private Mono<PostResponse> serve(Long id, CachedPost entry) {
+        long now = System.currentTimeMillis();
+        if (entry.isFresh(now)) {
+            return Mono.just(entry.getBody());
+        }
+
+        if (entry.isRevalidatable(now)) {
+            revalidate(id, entry).subscribe(
+                    refreshed -> { },
+                    err -> log.debug("Background revalidation of post {} failed: {}", id, err.getMessage()));
+            return Mono.just(entry.getBody());
+        }
+
+        return revalidate(id, entry).map(CachedPost::getBody);
+    }
+
+    private Mono<CachedPost> revalidate(Long id, CachedPost previous) {
+        return revalidations.execute(id, () -> fetch(id, previous)
+                .flatMap(entry -> postResponseCache.put(id, entry)
+                        .then(Mono.just(entry))));
+    }
+
+    // bulkhead(deadline(retry(circuitBreaker(attempt)))): an open breaker or a full bulkhead fails immediately,
+    // and the deadline bounds the whole chain however the attempts and backoffs add up
+    // a URI template keeps http.client.requests at one uri tag; post.client.fetch is the attempt incl. retries
+    private Mono<CachedPost> fetch(Long id, CachedPost previous) {
+        Mono<CachedPost> attempt = webClient.get()
+                .uri(properties.getBaseUrl() + "/posts/{id}", id)
+                .headers(headers -> {
+                    if (previous != null && previous.getEtag() != null) {
+                        headers.setIfNoneMatch(previous.getEtag());
+                    }
+                })
+                .exchangeToMono(response -> {
+                    if (response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && previous != null) {
+                        return response.releaseBody()
+                                .then(Mono.fromSupplier(() -> postResponseCache.revalidated(previous, response.headers().asHttpHeaders())));
+                    }
+                    if (response.statusCode().is2xxSuccessful()) {
+                        return response.bodyToMono(PostResponse.class)
+                                .map(body -> postResponseCache.entryOf(body, response.headers().asHttpHeaders()));
+                    }
+                    return response.createError();
+                })
+                .timeout(properties.getAttemptTimeout())
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .retryWhen(retry)
+                .timeout(properties.getDeadline())
+                .transformDeferred(BulkheadOperator.of(bulkhead));
+        return stageMetrics.timed(attempt, "post.client.fetch");
+    }
+
+    // only idempotent GETs go through here; retry transport errors, timeouts and 5xx gateway errors
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof WebClientResponseException responseException) {
+            int status = responseException.getStatusCode().value();
+            return status == 502 || status == 503 || status == 504;
+        }
+        return error instanceof WebClientRequestException || error instanceof TimeoutException;
     }
 }
@@ -0,0 +1,30 @@
+package com.laze.springwebfluxpractice.config;
+
+import com.laze.springwebfluxpractice.repository.Post;
+import com.laze.springwebfluxpractice.repository.PostR2dbcRepository;
+import com.laze.springwebfluxpractice.repository.User;
+import com.laze.springwebfluxpractice.repository.UserR2dbcRepository;
+import com.laze.springwebfluxpractice.support.BatchLoader;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class BatchLoaderConfig {
+
+    @Bean
+    public BatchLoader<Long, User> userBatchLoader(UserR2dbcRepository userR2dbcRepository,
+                                                   BatchLoaderProperties properties,
+                                                   MeterRegistry meterRegistry) {
+        return new BatchLoader<>("users", userR2dbcRepository::findAllById, User::getId,
+                properties.getUsers(), meterRegistry);
+    }
+
+    @Bean
+    public BatchLoader<Long, Post> postBatchLoader(PostR2dbcRepository postR2dbcRepository,
+                                                   BatchLoaderProperties properties,
+                                                   MeterRegistry meterRegistry) {
+        return new BatchLoader<>("posts", postR2dbcRepository::findAllById, Post::getId,
+                properties.getPosts(), meterRegistry);
+    }
+}
@@ -0,0 +1,22 @@
+package com.laze.springwebfluxpractice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.batch-loader")
+public class BatchLoaderProperties {
+    private Spec users = new Spec();
+    private Spec posts = new Spec();
+
+    @Data
+    public static class Spec {
+        private boolean enabled = true;
+        private Duration window = Duration.ofMillis(2);
+        private int maxBatchSize = 100;
+        private int maxConcurrency = 8;
+        private boolean metricsEnabled = true;
+    }
+}
@@ -0,0 +1,30 @@
+package com.laze.springwebfluxpractice.config;
+
+import com.laze.springwebfluxpractice.support.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * The scheduler handlers subscribe blocking calls on (JDBC reports, legacy SDKs) so they stay off the event loop:
+ * {@code Mono.fromCallable(...).subscribeOn(blockingScheduler)}.
+ */
+@Configuration
+@Slf4j
+public class BlockingConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler blockingScheduler(BlockingProperties properties) {
+        if (properties.isVirtualThreads()) {
+            if (VirtualThreads.isSupported()) {
+                log.info("Blocking calls run on virtual threads");
+                return VirtualThreads.newScheduler(properties.getThreadNamePrefix());
+            }
+            log.warn("app.blocking.virtual-threads needs Java 21+ (running {}), using boundedElastic", Runtime.version());
+        }
+        // shared scheduler, dispose is a no-op
+        return Schedulers.boundedElastic();
+    }
+}
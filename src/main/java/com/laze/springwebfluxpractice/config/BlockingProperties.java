@@ -0,0 +1,12 @@
+package com.laze.springwebfluxpractice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.blocking")
+public class BlockingProperties {
+    // run blockingScheduler work on virtual threads when the runtime is Java 21+, boundedElastic otherwise
+    private boolean virtualThreads = false;
+    private String threadNamePrefix = "blocking-vt-";
+}
@@ -0,0 +1,26 @@
+package com.laze.springwebfluxpractice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import reactor.core.publisher.BufferOverflowStrategy;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.changes")
+public class ChangeFeedProperties {
+    private boolean enabled = true;
+    // events kept for Last-Event-ID resume
+    private int historySize = 10_000;
+    // per subscriber; on overflow ERROR disconnects the client, which then resumes from history
+    private int subscriberBuffer = 256;
+    private BufferOverflowStrategy overflow = BufferOverflowStrategy.ERROR;
+    private Duration heartbeat = Duration.ofSeconds(15);
+    private Relay relay = new Relay();
+
+    @Data
+    public static class Relay {
+        private boolean enabled = true;
+        private String channel = "changes";
+    }
+}
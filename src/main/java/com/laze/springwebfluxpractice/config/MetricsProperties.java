@@ -0,0 +1,12 @@
+package com.laze.springwebfluxpractice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.metrics")
+public class MetricsProperties {
+    // StageMetrics timers/gauges; off leaves the reactive chains untouched
+    private boolean stages = true;
+    private boolean repositories = true;
+}
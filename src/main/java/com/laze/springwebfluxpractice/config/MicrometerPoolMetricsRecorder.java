@@ -0,0 +1,94 @@
+package com.laze.springwebfluxpractice.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.pool.PoolMetricsRecorder;
+
+import java.util.concurrent.TimeUnit;
+
+public class MicrometerPoolMetricsRecorder implements PoolMetricsRecorder {
+
+    private final Timer allocationSuccess;
+    private final Timer allocationFailure;
+    private final Timer reset;
+    private final Timer destroy;
+    private final Timer lifetime;
+    private final Timer idle;
+    private final Counter recycled;
+    private final Counter fastPath;
+    private final Counter slowPath;
+
+    public MicrometerPoolMetricsRecorder(MeterRegistry meterRegistry, String poolName) {
+        this.allocationSuccess = timer(meterRegistry, "r2dbc.pool.allocation", poolName, "success");
+        this.allocationFailure = timer(meterRegistry, "r2dbc.pool.allocation", poolName, "failure");
+        this.reset = timer(meterRegistry, "r2dbc.pool.reset", poolName, null);
+        this.destroy = timer(meterRegistry, "r2dbc.pool.destroy", poolName, null);
+        this.lifetime = timer(meterRegistry, "r2dbc.pool.lifetime", poolName, null);
+        this.idle = timer(meterRegistry, "r2dbc.pool.idle.time", poolName, null);
+        this.recycled = counter(meterRegistry, "r2dbc.pool.recycled", poolName);
+        this.fastPath = counter(meterRegistry, "r2dbc.pool.acquire.fast.path", poolName);
+        this.slowPath = counter(meterRegistry, "r2dbc.pool.acquire.slow.path", poolName);
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String name, String poolName, String outcome) {
+        var builder = Timer.builder(name)
+                .tag("name", poolName)
+                .publishPercentileHistogram();
+        if (outcome != null) {
+            builder.tag("outcome", outcome);
+        }
+        return builder.register(meterRegistry);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, String poolName) {
+        return Counter.builder(name)
+                .tag("name", poolName)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void recordAllocationSuccessAndLatency(long latencyMs) {
+        allocationSuccess.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordAllocationFailureAndLatency(long latencyMs) {
+        allocationFailure.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordResetLatency(long latencyMs) {
+        reset.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordDestroyLatency(long latencyMs) {
+        destroy.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordRecycled() {
+        recycled.increment();
+    }
+
+    @Override
+    public void recordLifetimeDuration(long millisecondsSinceAllocation) {
+        lifetime.record(millisecondsSinceAllocation, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordIdleTime(long millisecondsIdle) {
+        idle.record(millisecondsIdle, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordSlowPath() {
+        slowPath.increment();
+    }
+
+    @Override
+    public void recordFastPath() {
+        fastPath.increment();
+    }
+}
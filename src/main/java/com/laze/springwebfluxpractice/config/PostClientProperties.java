@@ -0,0 +1,49 @@
+package com.laze.springwebfluxpractice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.post-client")
+public class PostClientProperties {
+    private String baseUrl = "http://127.0.0.1:8090";
+    private Duration connectTimeout = Duration.ofMillis(500);
+    private Duration responseTimeout = Duration.ofSeconds(1);
+    private Duration attemptTimeout = Duration.ofMillis(1500);
+    // whole fetch including retries and backoff
+    private Duration deadline = Duration.ofSeconds(2);
+    private Pool pool = new Pool();
+    private Retry retry = new Retry();
+    private Cache cache = new Cache();
+
+    @Data
+    public static class Pool {
+        private int maxConnections = 200;
+        private int pendingAcquireMaxCount = 400;
+        private Duration pendingAcquireTimeout = Duration.ofMillis(500);
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration evictInBackground = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Retry {
+        // total calls including the first one
+        private int maxAttempts = 2;
+        private Duration minBackoff = Duration.ofMillis(50);
+        private Duration maxBackoff = Duration.ofMillis(500);
+        private double jitter = 0.5;
+    }
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        private long maximumSize = 10_000;
+        private Duration defaultTtl = Duration.ofSeconds(30);
+        private Duration staleWhileRevalidate = Duration.ofSeconds(60);
+        private Duration staleIfError = Duration.ofMinutes(10);
+        private boolean redisEnabled = false;
+    }
+}
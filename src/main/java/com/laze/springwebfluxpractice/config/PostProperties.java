@@ -0,0 +1,38 @@
+package com.laze.springwebfluxpractice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.posts")
+public class PostProperties {
+    private Bulk bulk = new Bulk();
+    private Search search = new Search();
+    private UserPosts userPosts = new UserPosts();
+
+    @Data
+    public static class Bulk {
+        private int chunkSize = 500;
+    }
+
+    @Data
+    public static class Search {
+        private int maxConcurrency = 32;
+        private boolean preserveOrder = true;
+        private Duration deadline = Duration.ofSeconds(2);
+        private int maxIds = 1000;
+    }
+
+    // GET /users/{id}/posts served from UserPostCache instead of the posts-users join
+    @Data
+    public static class UserPosts {
+        private boolean cacheEnabled = true;
+        private int maxUsers = 10_000;
+        private int maxPosts = 100_000;
+        private Duration ttl = Duration.ofSeconds(30);
+        // post bodies missing from the cache are loaded this many ids per query
+        private int loadChunkSize = 500;
+    }
+}
@@ -1,5 +1,7 @@
 package com.laze.springwebfluxpractice.config;
 
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.ConnectionFactory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
@@ -9,6 +11,7 @@ import org.springframework.data.r2dbc.config.EnableR2dbcAuditing;
 import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
 import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
 
 @Component
 @RequiredArgsConstructor
@@ -18,10 +21,12 @@ import org.springframework.stereotype.Component;
 public class R2dbcConfig implements ApplicationListener<ApplicationReadyEvent> {
 
     private final DatabaseClient databaseClient;
+    private final ConnectionFactory connectionFactory;
 
     @Override
     public void onApplicationEvent(ApplicationReadyEvent event) {
-        databaseClient.sql("SELECT 1").fetch().one()
+        warmup()
+                .then(databaseClient.sql("SELECT 1").fetch().one())
                 .subscribe(
                         success -> {
                             log.info("Initialize r2dbc database connection");
@@ -33,4 +38,13 @@ public class R2dbcConfig implements ApplicationListener<ApplicationReadyEvent> {
                 );
 
     }
+
+    private Mono<Void> warmup() {
+        if (connectionFactory instanceof ConnectionPool pool) {
+            return pool.warmup()
+                    .doOnNext(count -> log.info("Warmed up {} r2dbc connections", count))
+                    .then();
+        }
+        return Mono.empty();
+    }
 }
@@ -0,0 +1,95 @@
+package com.laze.springwebfluxpractice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Option;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.r2dbc.ConnectionFactoryOptionsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+/**
+ * Builds the r2dbc-pool from spring.r2dbc.pool.* ourselves so pool internals and acquire latency
+ * can be recorded; the actuator still binds its r2dbc.pool.* gauges to this bean. Connection options are built
+ * as Boot does (url, credentials, spring.r2dbc.properties, ConnectionFactoryOptionsBuilderCustomizer beans).
+ * With spring.r2dbc.pool.enabled=false Boot's unpooled ConnectionFactory is used instead.
+ */
+@Configuration
+public class R2dbcPoolConfig {
+
+    private static final String POOL_NAME = "r2dbc";
+
+    @Bean(destroyMethod = "dispose")
+    @ConditionalOnProperty(prefix = "spring.r2dbc.pool", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public ConnectionPool connectionFactory(R2dbcProperties properties,
+                                            ObjectProvider<ConnectionFactoryOptionsBuilderCustomizer> customizers,
+                                            MeterRegistry meterRegistry) {
+        var options = ConnectionFactoryOptions.parse(properties.getUrl()).mutate();
+        if (StringUtils.hasText(properties.getUsername())) {
+            options.option(ConnectionFactoryOptions.USER, properties.getUsername());
+        }
+        if (StringUtils.hasText(properties.getPassword())) {
+            options.option(ConnectionFactoryOptions.PASSWORD, properties.getPassword());
+        }
+        properties.getProperties().forEach((key, value) -> options.option(Option.valueOf(key), value));
+        customizers.orderedStream().forEach(customizer -> customizer.customize(options));
+
+        var pool = properties.getPool();
+        var builder = ConnectionPoolConfiguration.builder(ConnectionFactories.get(options.build()))
+                .name(POOL_NAME)
+                .initialSize(pool.getInitialSize())
+                .maxSize(pool.getMaxSize())
+                .minIdle(pool.getMinIdle())
+                .validationDepth(pool.getValidationDepth())
+                .metricsRecorder(new MicrometerPoolMetricsRecorder(meterRegistry, POOL_NAME));
+
+        var map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+        map.from(pool.getMaxIdleTime()).to(builder::maxIdleTime);
+        map.from(pool.getMaxLifeTime()).to(builder::maxLifeTime);
+        map.from(pool.getMaxAcquireTime()).to(builder::maxAcquireTime);
+        map.from(pool.getMaxCreateConnectionTime()).to(builder::maxCreateConnectionTime);
+        map.from(pool.getValidationQuery()).whenHasText().to(builder::validationQuery);
+
+        return new TimedConnectionPool(builder.build(), meterRegistry);
+    }
+
+    static class TimedConnectionPool extends ConnectionPool {
+
+        private final Timer acquireSuccess;
+        private final Timer acquireFailure;
+
+        TimedConnectionPool(ConnectionPoolConfiguration configuration, MeterRegistry meterRegistry) {
+            super(configuration);
+            this.acquireSuccess = acquireTimer(meterRegistry, "success");
+            this.acquireFailure = acquireTimer(meterRegistry, "failure");
+        }
+
+        private static Timer acquireTimer(MeterRegistry meterRegistry, String outcome) {
+            return Timer.builder("r2dbc.pool.acquire")
+                    .tag("name", POOL_NAME)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public Mono<Connection> create() {
+            return Mono.defer(() -> {
+                var sample = Timer.start();
+                return super.create()
+                        .doOnSuccess(connection -> sample.stop(acquireSuccess))
+                        .doOnError(err -> sample.stop(acquireFailure));
+            });
+        }
+    }
+}
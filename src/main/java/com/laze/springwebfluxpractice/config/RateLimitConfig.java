@@ -0,0 +1,19 @@
+package com.laze.springwebfluxpractice.config;
+
+import com.laze.springwebfluxpractice.support.RateLimitWebFilter;
+import com.laze.springwebfluxpractice.support.RedisRateLimiter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+
+@Configuration
+public class RateLimitConfig {
+
+    @Bean
+    @Order(0)
+    @ConditionalOnProperty(prefix = "app.rate-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public RateLimitWebFilter rateLimitWebFilter(RedisRateLimiter redisRateLimiter, RateLimitProperties properties) {
+        return new RateLimitWebFilter(redisRateLimiter, properties);
+    }
+}
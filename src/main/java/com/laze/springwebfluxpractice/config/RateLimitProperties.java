@@ -0,0 +1,46 @@
+package com.laze.springwebfluxpractice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    // buckets are keyed by remote address; this header names the client instead, but only on requests
+    // arriving from one of trustedProxies (e.g. the gateway that authenticated the caller)
+    private String clientHeader = "X-Client-Id";
+    private List<String> trustedProxies = new ArrayList<>();
+    // tokens taken from Redis per round trip and spent locally; 1 = every request goes to Redis
+    private int leaseSize = 5;
+    // unspent local tokens are dropped after this, bounding how far a node can run ahead of the shared bucket
+    private Duration leaseTtl = Duration.ofSeconds(1);
+    private int maxTrackedClients = 100_000;
+    // admit requests when Redis is unavailable instead of failing writes
+    private boolean failOpen = true;
+    private List<Route> routes = new ArrayList<>();
+
+    @Data
+    public static class Route {
+        private String name;
+        private String method;
+        // PathPattern syntax, e.g. /users/{id}
+        private String path;
+        private Limit limit = new Limit();
+        // per client key overrides of limit
+        private Map<String, Limit> clients = new HashMap<>();
+    }
+
+    // token bucket: up to capacity requests in a burst, refilled at refillPerSecond
+    @Data
+    public static class Limit {
+        private int capacity = 20;
+        private double refillPerSecond = 10;
+    }
+}
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.laze.springwebfluxpractice.cache.CachedPost;
+import com.laze.springwebfluxpractice.cache.UserBinaryRedisSerializer;
 import com.laze.springwebfluxpractice.repository.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -37,21 +39,44 @@ public class RedisConfig implements ApplicationListener<ApplicationReadyEvent> {
 
     }
 
-    @Bean
-    public ReactiveRedisTemplate<String, User> reactiveUserTemplate(ReactiveRedisConnectionFactory factory) {
-        var objectMapper = new ObjectMapper()
+    public static ObjectMapper redisObjectMapper() {
+        return new ObjectMapper()
                 .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
                 .registerModule(new JavaTimeModule())
                 .disable(SerializationFeature.WRITE_DATE_KEYS_AS_TIMESTAMPS);
+    }
+
+    @Bean
+    public ReactiveRedisTemplate<String, User> reactiveUserTemplate(ReactiveRedisConnectionFactory factory,
+                                                                    UserCacheProperties userCacheProperties) {
+        var objectMapper = redisObjectMapper();
 
         Jackson2JsonRedisSerializer<User> jackson2JsonRedisSerializer = new Jackson2JsonRedisSerializer<>(objectMapper, User.class);
+        RedisSerializer<User> valueSerializer = userCacheProperties.getCodec() == UserCacheProperties.Codec.BINARY
+                ? new UserBinaryRedisSerializer(jackson2JsonRedisSerializer, userCacheProperties.getCompressionThreshold())
+                : jackson2JsonRedisSerializer;
 
         RedisSerializationContext<String, User> serializationContext = RedisSerializationContext
                 .<String, User>newSerializationContext()
                 .key(RedisSerializer.string())
-                .value(jackson2JsonRedisSerializer)
+                .value(valueSerializer)
+                .hashKey(RedisSerializer.string())
+                .hashValue(valueSerializer)
+                .build();
+
+        return new ReactiveRedisTemplate<>(factory, serializationContext);
+    }
+
+    @Bean
+    public ReactiveRedisTemplate<String, CachedPost> reactiveCachedPostTemplate(ReactiveRedisConnectionFactory factory) {
+        Jackson2JsonRedisSerializer<CachedPost> serializer = new Jackson2JsonRedisSerializer<>(redisObjectMapper(), CachedPost.class);
+
+        RedisSerializationContext<String, CachedPost> serializationContext = RedisSerializationContext
+                .<String, CachedPost>newSerializationContext()
+                .key(RedisSerializer.string())
+                .value(serializer)
                 .hashKey(RedisSerializer.string())
-                .hashValue(jackson2JsonRedisSerializer)
+                .hashValue(serializer)
                 .build();
 
         return new ReactiveRedisTemplate<>(factory, serializationContext);
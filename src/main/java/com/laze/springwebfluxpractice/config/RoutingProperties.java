@@ -0,0 +1,20 @@
+package com.laze.springwebfluxpractice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.routing")
+public class RoutingProperties {
+    private Functional functional = new Functional();
+
+    @Data
+    public static class Functional {
+        // serve /users and /r2dbc/posts through RouterFunctions; they take precedence over the controllers
+        private boolean users = false;
+        private boolean posts = false;
+        // mount the functional routes under this prefix instead (e.g. /fn), keeping the controllers reachable
+        // on the original paths so both styles can be compared side by side
+        private String pathPrefix = "";
+    }
+}
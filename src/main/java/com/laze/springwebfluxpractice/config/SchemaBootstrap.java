@@ -0,0 +1,206 @@
+package com.laze.springwebfluxpractice.config;
+
+import com.laze.springwebfluxpractice.repository.PostCustomR2dbcRepositoryImpl;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates users/posts with the secondary indexes the repositories rely on, then EXPLAINs those queries
+ * and warns about full table scans. MySQL only; other databases (the H2 load test) bring their own schema.
+ * Runs once the application is ready, like {@link R2dbcConfig}'s warmup, so an unreachable database is left to
+ * that check. A bootstrap failure is only logged; app.schema.fail-on-full-scan still stops the application.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SchemaBootstrap implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final List<String> TABLES = List.of("""
+            CREATE TABLE IF NOT EXISTS users (
+                id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+                name       VARCHAR(128),
+                email      VARCHAR(255),
+                created_at DATETIME(6),
+                updated_at DATETIME(6),
+                version    BIGINT NOT NULL DEFAULT 0
+            )""", """
+            CREATE TABLE IF NOT EXISTS posts (
+                id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+                user_id    BIGINT,
+                title      VARCHAR(255),
+                content    TEXT,
+                created_at DATETIME(6),
+                updated_at DATETIME(6)
+            )""");
+
+    // findByName / deleteByName, findByUserId and the posts-users join
+    private static final List<Index> INDEXES = List.of(
+            new Index("users", "idx_users_name", List.of("name")),
+            new Index("posts", "idx_posts_user_id", List.of("user_id", "id")));
+
+    private static final Map<String, String> CHECKED_QUERIES = new LinkedHashMap<>();
+
+    static {
+        CHECKED_QUERIES.put("UserR2dbcRepository.findByName", "SELECT * FROM users WHERE name = 'laze'");
+        CHECKED_QUERIES.put("UserR2dbcRepository.deleteByName", "DELETE FROM users WHERE name = 'laze'");
+        CHECKED_QUERIES.put("UserR2dbcRepository.findPageAfter", "SELECT * FROM users WHERE id > 1 ORDER BY id LIMIT 20");
+        CHECKED_QUERIES.put("PostR2dbcRepository.findByUserId", "SELECT * FROM posts WHERE user_id = 1");
+        CHECKED_QUERIES.put("PostR2dbcRepository.findIdsByUserId", "SELECT id FROM posts WHERE user_id = 1 ORDER BY id");
+        CHECKED_QUERIES.put("PostR2dbcRepository.findPageAfter", "SELECT * FROM posts WHERE id > 1 ORDER BY id LIMIT 20");
+        CHECKED_QUERIES.put("PostCustomR2dbcRepository.findAllByUserId",
+                PostCustomR2dbcRepositoryImpl.FIND_ALL_BY_USER_ID_SQL.replace(":userId", "1"));
+        CHECKED_QUERIES.put("PostCustomR2dbcRepository.findAllByUserId(page)",
+                PostCustomR2dbcRepositoryImpl.FIND_PAGE_BY_USER_ID_SQL
+                        .replace(":userId", "1").replace(":after", "0").replace(":limit", "20"));
+    }
+
+    private final DatabaseClient databaseClient;
+    private final ConnectionFactory connectionFactory;
+    private final SchemaProperties schemaProperties;
+    private final UserProperties userProperties;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!schemaProperties.isBootstrap() && !schemaProperties.isExplainCheck()) {
+            return;
+        }
+        String database = connectionFactory.getMetadata().getName();
+        if (!database.toLowerCase().contains("mysql")) {
+            log.info("Skipping schema bootstrap for {}", database);
+            return;
+        }
+
+        Mono<Void> bootstrap = schemaProperties.isBootstrap() ? createTables().then(createIndexes()) : Mono.empty();
+        Mono<Void> check = schemaProperties.isExplainCheck() ? explainQueries() : Mono.empty();
+        bootstrap.then(check)
+                .timeout(schemaProperties.getTimeout())
+                .subscribe(null, error -> {
+                    if (error instanceof FullScanException) {
+                        log.error("Schema check failed: {}", error.getMessage());
+                        SpringApplication.exit(event.getApplicationContext(), () -> 1);
+                        return;
+                    }
+                    log.warn("Schema bootstrap failed: {}", error.getMessage());
+                });
+    }
+
+    private Mono<Void> createTables() {
+        return Flux.fromIterable(TABLES)
+                .concatMap(ddl -> databaseClient.sql(ddl).then())
+                .then(Mono.defer(() -> userProperties.isVersioned() ? addVersionColumn() : Mono.empty()));
+    }
+
+    // tables created before app.users.versioned existed
+    private Mono<Void> addVersionColumn() {
+        return databaseClient.sql("""
+                        SELECT COUNT(*) AS cnt FROM information_schema.columns
+                        WHERE table_schema = DATABASE() AND table_name = 'users' AND column_name = 'version'""")
+                .map(row -> row.get("cnt", Long.class))
+                .one()
+                .filter(count -> count == 0)
+                .flatMap(missing -> {
+                    log.info("Adding users.version");
+                    return databaseClient.sql("ALTER TABLE users ADD COLUMN version BIGINT NOT NULL DEFAULT 0").then();
+                });
+    }
+
+    private Mono<Void> createIndexes() {
+        return Flux.fromIterable(INDEXES)
+                .concatMap(index -> existingIndexes(index.table())
+                        .flatMap(existing -> {
+                            if (existing.values().stream().anyMatch(index::coveredBy)) {
+                                return Mono.empty();
+                            }
+                            log.info("Creating index {} on {}{}", index.name(), index.table(), index.columns());
+                            return databaseClient.sql("CREATE INDEX %s ON %s (%s)".formatted(
+                                    index.name(), index.table(), String.join(", ", index.columns()))).then();
+                        }))
+                .then();
+    }
+
+    // index name -> columns in index order
+    private Mono<Map<String, List<String>>> existingIndexes(String table) {
+        return databaseClient.sql("""
+                        SELECT index_name AS idx, column_name AS col FROM information_schema.statistics
+                        WHERE table_schema = DATABASE() AND table_name = :table
+                        ORDER BY index_name, seq_in_index""")
+                .bind("table", table)
+                .map(row -> Map.entry(row.get("idx", String.class), row.get("col", String.class)))
+                .all()
+                .collectMultimap(Map.Entry::getKey, Map.Entry::getValue, LinkedHashMap::new)
+                .map(indexes -> {
+                    Map<String, List<String>> columns = new LinkedHashMap<>();
+                    indexes.forEach((name, cols) -> columns.put(name, List.copyOf(cols)));
+                    return columns;
+                });
+    }
+
+    private Mono<Void> explainQueries() {
+        return Flux.fromIterable(CHECKED_QUERIES.entrySet())
+                .concatMap(query -> databaseClient.sql("EXPLAIN " + query.getValue())
+                        .map(row -> new ExplainRow(
+                                row.get("table", String.class),
+                                row.get("type", String.class),
+                                row.get("possible_keys", String.class),
+                                row.get("rows", Number.class)))
+                        .all()
+                        .onErrorResume(err -> {
+                            log.warn("Could not EXPLAIN {}: {}", query.getKey(), err.getMessage());
+                            return Mono.empty();
+                        })
+                        .filter(ExplainRow::isFullScan)
+                        .doOnNext(scan -> reportFullScan(query.getKey(), scan)))
+                .then();
+    }
+
+    private void reportFullScan(String query, ExplainRow scan) {
+        if (scan.possibleKeys() != null) {
+            // an index exists but the optimizer preferred a scan, normally because the table is still small
+            log.warn("{} scans {} (~{} rows) although {} could be used", query, scan.table(), scan.rows(), scan.possibleKeys());
+            return;
+        }
+
+        log.warn("{} does a full scan of {} (~{} rows): no usable index", query, scan.table(), scan.rows());
+        if (schemaProperties.isFailOnFullScan()) {
+            throw new FullScanException("%s requires a full scan of %s".formatted(query, scan.table()));
+        }
+    }
+
+    private record Index(String table, String name, List<String> columns) {
+        boolean coveredBy(List<String> existing) {
+            if (existing.size() < columns.size()) {
+                return false;
+            }
+            for (int i = 0; i < columns.size(); i++) {
+                if (!columns.get(i).equalsIgnoreCase(existing.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class FullScanException extends IllegalStateException {
+        FullScanException(String message) {
+            super(message);
+        }
+    }
+
+    private record ExplainRow(String table, String type, String possibleKeys, Number rows) {
+        boolean isFullScan() {
+            return "ALL".equalsIgnoreCase(type);
+        }
+    }
+}
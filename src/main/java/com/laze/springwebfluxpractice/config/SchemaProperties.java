@@ -0,0 +1,17 @@
+package com.laze.springwebfluxpractice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.schema")
+public class SchemaProperties {
+    // create users/posts and their secondary indexes when missing (MySQL only)
+    private boolean bootstrap = true;
+    // EXPLAIN the repository queries at startup and warn on full table scans
+    private boolean explainCheck = true;
+    private boolean failOnFullScan = false;
+    private Duration timeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,54 @@
+package com.laze.springwebfluxpractice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.cache.user")
+public class UserCacheProperties {
+    private Duration ttl = Duration.ofSeconds(60);
+    private Codec codec = Codec.JSON;
+    private int compressionThreshold = 512;
+    private Near near = new Near();
+    private EarlyRefresh earlyRefresh = new EarlyRefresh();
+    private WriteMode writeMode = WriteMode.INVALIDATE;
+    private WriteBehind writeBehind = new WriteBehind();
+
+    public enum Codec {
+        JSON,
+        // writes binary, still reads JSON values written before the switch
+        BINARY
+    }
+
+    public enum WriteMode {
+        // update the DB, then unlink the cache key
+        INVALIDATE,
+        // update the DB, then write the fresh user into the cache
+        WRITE_THROUGH,
+        // write the cache now, coalesce DB writes per id and flush them every window
+        WRITE_BEHIND
+    }
+
+    @Data
+    public static class Near {
+        private boolean enabled = false;
+        private long maximumSize = 10_000;
+        private Duration ttl = Duration.ofSeconds(5);
+        private String invalidationChannel = "users:invalidation";
+    }
+
+    @Data
+    public static class EarlyRefresh {
+        private boolean enabled = false;
+        private double beta = 1.0;
+    }
+
+    @Data
+    public static class WriteBehind {
+        private Duration window = Duration.ofMillis(200);
+        private int concurrency = 8;
+        private Duration shutdownTimeout = Duration.ofSeconds(10);
+    }
+}
@@ -0,0 +1,30 @@
+package com.laze.springwebfluxpractice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties(prefix = "app.users")
+public class UserProperties {
+    // users.version column exists: every update bumps it and If-Match is enforced
+    private boolean versioned = false;
+    private Memory memory = new Memory();
+
+    // UserRepositoryImpl, the in-memory store
+    @Data
+    public static class Memory {
+        private int maxEntries = 0;
+        private Persistence persistence = new Persistence();
+    }
+
+    @Data
+    public static class Persistence {
+        private boolean enabled = false;
+        private String directory = "data/users";
+        // false trades durability of the last group commit for throughput
+        private boolean fsync = true;
+        // take a compacted snapshot once the current log grows past this
+        private DataSize snapshotLogSize = DataSize.ofMegabytes(64);
+    }
+}
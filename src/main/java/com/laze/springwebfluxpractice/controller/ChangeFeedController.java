@@ -0,0 +1,39 @@
+package com.laze.springwebfluxpractice.controller;
+
+import com.laze.springwebfluxpractice.config.ChangeFeedProperties;
+import com.laze.springwebfluxpractice.dto.ChangeEvent;
+import com.laze.springwebfluxpractice.service.ChangeFeedService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.util.Set;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/changes")
+public class ChangeFeedController {
+
+    private final ChangeFeedService changeFeedService;
+    private final ChangeFeedProperties changeFeedProperties;
+
+    // ?entity=user&entity=post narrows the feed; EventSource sends Last-Event-ID on reconnect
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ChangeEvent>> changes(@RequestParam(name = "entity", required = false) Set<String> entities,
+                                                     @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Flux<ServerSentEvent<ChangeEvent>> events = changeFeedService.subscribe(entities == null ? Set.of() : entities, lastEventId)
+                .map(event -> ServerSentEvent.builder(event)
+                        .id(event.getId())
+                        .event(event.getType())
+                        .build());
+        Flux<ServerSentEvent<ChangeEvent>> heartbeat = Flux.interval(changeFeedProperties.getHeartbeat())
+                .map(i -> ServerSentEvent.<ChangeEvent>builder().comment("keepalive").build());
+        return Flux.merge(events, heartbeat);
+    }
+}
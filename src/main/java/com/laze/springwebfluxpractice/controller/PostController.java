@@ -1,13 +1,11 @@
 package com.laze.springwebfluxpractice.controller;
 
-import com.laze.springwebfluxpractice.client.PostClient;
 import com.laze.springwebfluxpractice.dto.PostResponse;
 import com.laze.springwebfluxpractice.service.PostService;
 import lombok.AllArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
 
@@ -16,29 +14,22 @@ import java.util.List;
 @RequestMapping("/posts")
 public class PostController {
     private final PostService postService;
-    private final PostClient postClient;
 
     @GetMapping("/{id}")
     public Mono<PostResponse> getPostContent(@PathVariable Long id) {
-        return postClient.getPost(id)
-                .onErrorResume(error -> Mono.just(new PostResponse(id.toString(), "Fallback data %d".formatted(id))));
+        return postService.getPostContent(id);
     }
 
     @GetMapping("/search")
-    public Flux<PostResponse> getMultiplePostContent(@RequestParam(name = "ids") List<Long> idList) {
-        return Flux.fromIterable(idList)
-                .flatMap(this::getPostContent)
-                .log();
+    public Flux<PostResponse> getMultiplePostContent(@RequestParam(name = "ids") List<Long> idList,
+                                                     @RequestParam(required = false) Boolean ordered) {
+        return postService.getPostContents(idList, ordered);
     }
 
+    // kept for existing clients; same fan-out as /search
     @GetMapping("/search2")
-    public Flux<PostResponse> getParallelMultiplePostContent(@RequestParam(name = "ids") List<Long> idList) {
-        return Flux.fromIterable(idList)
-                .parallel()
-                .log()
-                .runOn(Schedulers.parallel())
-                .flatMap(this::getPostContent)
-                .log()
-                .sequential();
+    public Flux<PostResponse> getParallelMultiplePostContent(@RequestParam(name = "ids") List<Long> idList,
+                                                             @RequestParam(required = false) Boolean ordered) {
+        return postService.getPostContents(idList, ordered);
     }
 }
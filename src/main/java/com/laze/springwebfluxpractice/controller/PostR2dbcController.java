@@ -1,9 +1,13 @@
 package com.laze.springwebfluxpractice.controller;
 
+import com.laze.springwebfluxpractice.dto.CursorPage;
 import com.laze.springwebfluxpractice.dto.PostR2dbcCreateRequest;
 import com.laze.springwebfluxpractice.dto.PostR2dbcResponse;
+import com.laze.springwebfluxpractice.repository.Post;
 import com.laze.springwebfluxpractice.service.PostServiceR2dbc;
+import com.laze.springwebfluxpractice.support.KeysetPagination;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
@@ -22,12 +26,37 @@ public class PostR2dbcController {
                 .map(PostR2dbcResponse::of);
     }
 
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Long> createPosts(@RequestBody Flux<PostR2dbcCreateRequest> requests) {
+        return postServiceR2dbc.createAll(requests.map(request -> Post.builder()
+                .userId(request.getUserId())
+                .title(request.getTitle())
+                .content(request.getContent())
+                .build()));
+    }
+
     @GetMapping("")
     public Flux<PostR2dbcResponse> findAllPosts() {
         return postServiceR2dbc.findAll()
                 .map(PostR2dbcResponse::of);
     }
 
+    @GetMapping("/page")
+    public Mono<CursorPage<PostR2dbcResponse>> findPostPage(@RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "20") int limit) {
+        int size = KeysetPagination.clamp(limit, 1000);
+        return postServiceR2dbc.findPage(KeysetPagination.decodeCursor(cursor), size)
+                .map(PostR2dbcResponse::of)
+                .collectList()
+                .map(posts -> CursorPage.of(posts, size, PostR2dbcResponse::getId));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PostR2dbcResponse> streamAllPosts(@RequestParam(defaultValue = "500") int fetchSize) {
+        return postServiceR2dbc.streamAll(KeysetPagination.clamp(fetchSize, 5000))
+                .map(PostR2dbcResponse::of);
+    }
+
     @GetMapping("/{id}")
     public Mono<ResponseEntity<PostR2dbcResponse>> findPost(@PathVariable Long id) {
         return postServiceR2dbc.findById(id)
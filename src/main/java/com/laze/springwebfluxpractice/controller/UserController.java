@@ -1,17 +1,26 @@
 package com.laze.springwebfluxpractice.controller;
 
+import com.laze.springwebfluxpractice.dto.CursorPage;
 import com.laze.springwebfluxpractice.dto.UserCreateRequest;
 import com.laze.springwebfluxpractice.dto.UserPostResponse;
 import com.laze.springwebfluxpractice.dto.UserResponse;
 import com.laze.springwebfluxpractice.dto.UserUpdateRequest;
+import com.laze.springwebfluxpractice.repository.User;
 import com.laze.springwebfluxpractice.service.PostServiceR2dbc;
 import com.laze.springwebfluxpractice.service.UserService;
+import com.laze.springwebfluxpractice.support.ETags;
+import com.laze.springwebfluxpractice.support.KeysetPagination;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.stream.Collectors;
 
 @RestController
@@ -34,6 +43,28 @@ public class UserController {
                 .map(UserResponse::of);
     }
 
+    @GetMapping("/page")
+    public Mono<CursorPage<UserResponse>> findUserPage(@RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "20") int limit) {
+        int size = KeysetPagination.clamp(limit, 1000);
+        return userService.findPage(KeysetPagination.decodeCursor(cursor), size)
+                .map(UserResponse::of)
+                .collectList()
+                .map(users -> CursorPage.of(users, size, UserResponse::getId));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserResponse> streamAllUsers(@RequestParam(defaultValue = "500") int fetchSize) {
+        return userService.streamAll(KeysetPagination.clamp(fetchSize, 5000))
+                .map(UserResponse::of);
+    }
+
+    @GetMapping("/batch")
+    public Flux<UserResponse> findAllByIds(@RequestParam(name = "ids") List<Long> idList) {
+        return userService.findAllById(idList)
+                .map(UserResponse::of);
+    }
+
     @GetMapping("/{id}")
     public Mono<ResponseEntity<UserResponse>> findById(@PathVariable  Long id) {
         return userService.findById(id)
@@ -49,10 +80,33 @@ public class UserController {
     }
 
     @PutMapping("/{id}")
-    public Mono<ResponseEntity<UserResponse>> updateUser(@PathVariable  Long id, @RequestBody UserUpdateRequest request) {
-        return userService.update(id, request.getName(),  request.getEmail())
-                .map(user -> ResponseEntity.ok(UserResponse.of(user)))
-                .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
+    public Mono<ResponseEntity<UserResponse>> updateUser(@PathVariable  Long id, @RequestBody UserUpdateRequest request,
+                                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                         @RequestHeader(value = "Prefer", required = false) String prefer) {
+        Long expectedVersion = ETags.parseVersion(ifMatch);
+        if (prefer != null && prefer.contains("return=minimal")) {
+            return userService.updateWithoutBody(id, request.getName(), request.getEmail(), expectedVersion)
+                    .map(rows -> rows > 0
+                            ? ResponseEntity.noContent().<UserResponse>build()
+                            : ResponseEntity.notFound().<UserResponse>build())
+                    .onErrorResume(OptimisticLockingFailureException.class,
+                            e -> Mono.just(ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build()));
+        }
+
+        Mono<User> updated = expectedVersion == null
+                ? userService.update(id, request.getName(), request.getEmail())
+                : userService.update(id, request.getName(), request.getEmail(), expectedVersion);
+        return updated
+                .map(user -> {
+                    var ok = ResponseEntity.ok();
+                    if (user.getVersion() != null) {
+                        ok.eTag(String.valueOf(user.getVersion()));
+                    }
+                    return ok.body(UserResponse.of(user));
+                })
+                .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()))
+                .onErrorResume(OptimisticLockingFailureException.class,
+                        e -> Mono.just(ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build()));
     }
 
     @DeleteMapping("/search")
@@ -65,4 +119,15 @@ public class UserController {
         return postServiceR2dbc.findAllByUserId(id)
                 .map(UserPostResponse::of);
     }
+
+    @GetMapping("/{id}/posts/page")
+    public Mono<CursorPage<UserPostResponse>> getUserPostPage(@PathVariable Long id,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(defaultValue = "20") int limit) {
+        int size = KeysetPagination.clamp(limit, 1000);
+        return postServiceR2dbc.findAllByUserId(id, KeysetPagination.decodeCursor(cursor), size)
+                .map(UserPostResponse::of)
+                .collectList()
+                .map(posts -> CursorPage.of(posts, size, UserPostResponse::getId));
+    }
 }
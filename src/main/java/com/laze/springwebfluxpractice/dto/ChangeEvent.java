@@ -0,0 +1,25 @@
+package com.laze.springwebfluxpractice.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChangeEvent {
+    // "<epochMillis>-<seq>" assigned by the node the change happened on
+    private String id;
+    private String entity;
+    private String type;
+    private Long entityId;
+    private Object data;
+    private String origin;
+
+    // arrival order on this node, used to stitch history replay and the live stream together
+    @JsonIgnore
+    private long position;
+}
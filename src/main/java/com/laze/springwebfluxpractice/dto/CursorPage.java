@@ -0,0 +1,24 @@
+package com.laze.springwebfluxpractice.dto;
+
+import com.laze.springwebfluxpractice.support.KeysetPagination;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+
+    public static <T> CursorPage<T> of(List<T> items, int limit, Function<T, Long> idExtractor) {
+        String nextCursor = items.size() < limit
+                ? null
+                : KeysetPagination.encodeCursor(idExtractor.apply(items.get(items.size() - 1)));
+        return new CursorPage<>(items, nextCursor);
+    }
+}
@@ -19,7 +19,7 @@ public class UserPostResponse {
     public static UserPostResponse of(Post post) {
         return UserPostResponse.builder()
                 .id(post.getId())
-                .username(post.getUser().getName())
+                .username(post.getUser() == null ? null : post.getUser().getName())
                 .title(post.getTitle())
                 .content(post.getContent())
                 .createdAt(post.getCreatedAt())
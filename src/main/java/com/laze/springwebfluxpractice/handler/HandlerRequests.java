@@ -0,0 +1,81 @@
+package com.laze.springwebfluxpractice.handler;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.server.ServerWebInputException;
+import org.springframework.web.server.UnsupportedMediaTypeStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// the conversions @PathVariable / @RequestParam do for the controllers, with the same 400 on bad input
+final class HandlerRequests {
+
+    private HandlerRequests() {
+    }
+
+    // @RequestBody is required by default: no body is a 400, not an empty result
+    static <T> Mono<T> body(ServerRequest request, Class<T> type) {
+        return request.bodyToMono(type)
+                .switchIfEmpty(Mono.error(() -> new ServerWebInputException("No request body")));
+    }
+
+    // @PostMapping(consumes = ...): anything else is a 415, raised before the response is started
+    static <T> Flux<T> bodyFlux(ServerRequest request, Class<T> type, List<MediaType> consumes) {
+        MediaType contentType = request.headers().contentType().orElse(MediaType.APPLICATION_OCTET_STREAM);
+        if (consumes.stream().noneMatch(supported -> supported.isCompatibleWith(contentType))) {
+            throw new UnsupportedMediaTypeStatusException(contentType, consumes);
+        }
+        return request.bodyToFlux(type);
+    }
+
+    static Long id(ServerRequest request) {
+        String id = request.pathVariable("id");
+        try {
+            return Long.valueOf(id);
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("invalid id: " + id);
+        }
+    }
+
+    static int intParam(ServerRequest request, String name, int defaultValue) {
+        return request.queryParam(name)
+                .map(value -> {
+                    try {
+                        return Integer.parseInt(value);
+                    } catch (NumberFormatException e) {
+                        throw new ServerWebInputException("invalid %s: %s".formatted(name, value));
+                    }
+                })
+                .orElse(defaultValue);
+    }
+
+    static String requiredParam(ServerRequest request, String name) {
+        return request.queryParam(name)
+                .orElseThrow(() -> new ServerWebInputException("missing parameter " + name));
+    }
+
+    // ?ids=1,2&ids=3
+    static List<Long> longListParam(ServerRequest request, String name) {
+        List<String> values = request.queryParams().get(name);
+        if (values == null || values.isEmpty()) {
+            throw new ServerWebInputException("missing parameter " + name);
+        }
+        List<Long> result = new ArrayList<>();
+        for (String value : values) {
+            for (String part : value.split(",")) {
+                if (part.isBlank()) {
+                    continue;
+                }
+                try {
+                    result.add(Long.valueOf(part.trim()));
+                } catch (NumberFormatException e) {
+                    throw new ServerWebInputException("invalid %s: %s".formatted(name, part));
+                }
+            }
+        }
+        return result;
+    }
+}
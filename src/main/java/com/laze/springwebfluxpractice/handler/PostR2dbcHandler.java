@@ -0,0 +1,86 @@
+package com.laze.springwebfluxpractice.handler;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laze.springwebfluxpractice.dto.CursorPage;
+import com.laze.springwebfluxpractice.dto.PostR2dbcCreateRequest;
+import com.laze.springwebfluxpractice.dto.PostR2dbcResponse;
+import com.laze.springwebfluxpractice.repository.Post;
+import com.laze.springwebfluxpractice.service.PostServiceR2dbc;
+import com.laze.springwebfluxpractice.support.JsonResponses;
+import com.laze.springwebfluxpractice.support.KeysetPagination;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static com.laze.springwebfluxpractice.handler.HandlerRequests.*;
+
+/**
+ * Functional counterpart of PostR2dbcController, same paths and responses.
+ */
+public class PostR2dbcHandler {
+
+    private static final Mono<ServerResponse> NOT_FOUND = ServerResponse.notFound().build();
+    private static final Mono<ServerResponse> NO_CONTENT = ServerResponse.noContent().build();
+    private static final List<MediaType> BULK_TYPES = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON);
+
+    private final PostServiceR2dbc postServiceR2dbc;
+    private final JsonResponses<PostR2dbcResponse> posts;
+    private final JsonResponses<CursorPage<PostR2dbcResponse>> postPages;
+    private final JsonResponses<Long> ids;
+
+    public PostR2dbcHandler(PostServiceR2dbc postServiceR2dbc, ObjectMapper objectMapper) {
+        this.postServiceR2dbc = postServiceR2dbc;
+        this.posts = new JsonResponses<>(objectMapper.writerFor(PostR2dbcResponse.class));
+        this.postPages = new JsonResponses<>(objectMapper.writerFor(new TypeReference<CursorPage<PostR2dbcResponse>>() {
+        }));
+        this.ids = new JsonResponses<>(objectMapper.writerFor(Long.class));
+    }
+
+    public Mono<ServerResponse> create(ServerRequest request) {
+        return body(request, PostR2dbcCreateRequest.class)
+                .flatMap(body -> postServiceR2dbc.create(body.getUserId(), body.getTitle(), body.getContent()))
+                .flatMap(post -> posts.ok(PostR2dbcResponse.of(post)));
+    }
+
+    // JSON array or NDJSON in, JSON array of ids out
+    public Mono<ServerResponse> createAll(ServerRequest request) {
+        return ids.okArray(postServiceR2dbc.createAll(bodyFlux(request, PostR2dbcCreateRequest.class, BULK_TYPES)
+                .map(body -> Post.builder()
+                        .userId(body.getUserId())
+                        .title(body.getTitle())
+                        .content(body.getContent())
+                        .build())));
+    }
+
+    public Mono<ServerResponse> findAll(ServerRequest request) {
+        return posts.okArray(postServiceR2dbc.findAll().map(PostR2dbcResponse::of));
+    }
+
+    public Mono<ServerResponse> findPage(ServerRequest request) {
+        int size = KeysetPagination.clamp(intParam(request, "limit", 20), 1000);
+        long after = KeysetPagination.decodeCursor(request.queryParam("cursor").orElse(null));
+        return postServiceR2dbc.findPage(after, size)
+                .map(PostR2dbcResponse::of)
+                .collectList()
+                .flatMap(page -> postPages.ok(CursorPage.of(page, size, PostR2dbcResponse::getId)));
+    }
+
+    public Mono<ServerResponse> stream(ServerRequest request) {
+        int fetchSize = KeysetPagination.clamp(intParam(request, "fetchSize", 500), 5000);
+        return posts.okNdjson(postServiceR2dbc.streamAll(fetchSize).map(PostR2dbcResponse::of));
+    }
+
+    public Mono<ServerResponse> findById(ServerRequest request) {
+        return postServiceR2dbc.findById(id(request))
+                .flatMap(post -> posts.ok(PostR2dbcResponse.of(post)))
+                .switchIfEmpty(NOT_FOUND);
+    }
+
+    public Mono<ServerResponse> deleteById(ServerRequest request) {
+        return postServiceR2dbc.deleteById(id(request)).then(NO_CONTENT);
+    }
+}
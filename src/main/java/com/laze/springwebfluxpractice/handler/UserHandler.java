@@ -0,0 +1,134 @@
+package com.laze.springwebfluxpractice.handler;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laze.springwebfluxpractice.dto.CursorPage;
+import com.laze.springwebfluxpractice.dto.UserCreateRequest;
+import com.laze.springwebfluxpractice.dto.UserPostResponse;
+import com.laze.springwebfluxpractice.dto.UserResponse;
+import com.laze.springwebfluxpractice.dto.UserUpdateRequest;
+import com.laze.springwebfluxpractice.service.PostServiceR2dbc;
+import com.laze.springwebfluxpractice.service.UserService;
+import com.laze.springwebfluxpractice.support.ETags;
+import com.laze.springwebfluxpractice.support.JsonResponses;
+import com.laze.springwebfluxpractice.support.KeysetPagination;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import static com.laze.springwebfluxpractice.handler.HandlerRequests.*;
+
+/**
+ * Functional counterpart of UserController, same paths and responses.
+ */
+public class UserHandler {
+
+    // immutable responses, shared by every request
+    private static final Mono<ServerResponse> NOT_FOUND = ServerResponse.notFound().build();
+    private static final Mono<ServerResponse> NO_CONTENT = ServerResponse.noContent().build();
+    private static final Mono<ServerResponse> PRECONDITION_FAILED = ServerResponse.status(HttpStatus.PRECONDITION_FAILED).build();
+
+    private final UserService userService;
+    private final PostServiceR2dbc postServiceR2dbc;
+    private final JsonResponses<UserResponse> users;
+    private final JsonResponses<CursorPage<UserResponse>> userPages;
+    private final JsonResponses<UserPostResponse> userPosts;
+    private final JsonResponses<CursorPage<UserPostResponse>> userPostPages;
+
+    public UserHandler(UserService userService, PostServiceR2dbc postServiceR2dbc, ObjectMapper objectMapper) {
+        this.userService = userService;
+        this.postServiceR2dbc = postServiceR2dbc;
+        this.users = new JsonResponses<>(objectMapper.writerFor(UserResponse.class));
+        this.userPages = new JsonResponses<>(objectMapper.writerFor(new TypeReference<CursorPage<UserResponse>>() {
+        }));
+        this.userPosts = new JsonResponses<>(objectMapper.writerFor(UserPostResponse.class));
+        this.userPostPages = new JsonResponses<>(objectMapper.writerFor(new TypeReference<CursorPage<UserPostResponse>>() {
+        }));
+    }
+
+    public Mono<ServerResponse> create(ServerRequest request) {
+        return body(request, UserCreateRequest.class)
+                .flatMap(body -> userService.create(body.getName(), body.getEmail()))
+                .flatMap(user -> users.ok(UserResponse.of(user)));
+    }
+
+    public Mono<ServerResponse> findAll(ServerRequest request) {
+        return users.okArray(userService.findAll().map(UserResponse::of));
+    }
+
+    public Mono<ServerResponse> findPage(ServerRequest request) {
+        int size = KeysetPagination.clamp(intParam(request, "limit", 20), 1000);
+        long after = KeysetPagination.decodeCursor(request.queryParam("cursor").orElse(null));
+        return userService.findPage(after, size)
+                .map(UserResponse::of)
+                .collectList()
+                .flatMap(page -> userPages.ok(CursorPage.of(page, size, UserResponse::getId)));
+    }
+
+    public Mono<ServerResponse> stream(ServerRequest request) {
+        int fetchSize = KeysetPagination.clamp(intParam(request, "fetchSize", 500), 5000);
+        return users.okNdjson(userService.streamAll(fetchSize).map(UserResponse::of));
+    }
+
+    public Mono<ServerResponse> findAllByIds(ServerRequest request) {
+        return users.okArray(userService.findAllById(longListParam(request, "ids")).map(UserResponse::of));
+    }
+
+    public Mono<ServerResponse> findById(ServerRequest request) {
+        return userService.findById(id(request))
+                .flatMap(user -> users.ok(UserResponse.of(user)))
+                .switchIfEmpty(NOT_FOUND);
+    }
+
+    public Mono<ServerResponse> deleteById(ServerRequest request) {
+        return userService.deleteById(id(request)).then(NO_CONTENT);
+    }
+
+    public Mono<ServerResponse> deleteByName(ServerRequest request) {
+        return userService.deleteByName(requiredParam(request, "name")).then(NO_CONTENT);
+    }
+
+    public Mono<ServerResponse> update(ServerRequest request) {
+        Long id = id(request);
+        Long expectedVersion = ETags.parseVersion(request.headers().firstHeader(HttpHeaders.IF_MATCH));
+        String prefer = request.headers().firstHeader("Prefer");
+
+        if (prefer != null && prefer.contains("return=minimal")) {
+            return body(request, UserUpdateRequest.class)
+                    .flatMap(body -> userService.updateWithoutBody(id, body.getName(), body.getEmail(), expectedVersion))
+                    .flatMap(rows -> rows > 0 ? NO_CONTENT : NOT_FOUND)
+                    .onErrorResume(OptimisticLockingFailureException.class, e -> PRECONDITION_FAILED);
+        }
+
+        return body(request, UserUpdateRequest.class)
+                .flatMap(body -> expectedVersion == null
+                        ? userService.update(id, body.getName(), body.getEmail())
+                        : userService.update(id, body.getName(), body.getEmail(), expectedVersion))
+                .flatMap(user -> {
+                    var ok = ServerResponse.ok();
+                    if (user.getVersion() != null) {
+                        ok.eTag(String.valueOf(user.getVersion()));
+                    }
+                    return users.body(ok, UserResponse.of(user));
+                })
+                .switchIfEmpty(NOT_FOUND)
+                .onErrorResume(OptimisticLockingFailureException.class, e -> PRECONDITION_FAILED);
+    }
+
+    public Mono<ServerResponse> findPosts(ServerRequest request) {
+        return userPosts.okArray(postServiceR2dbc.findAllByUserId(id(request)).map(UserPostResponse::of));
+    }
+
+    public Mono<ServerResponse> findPostPage(ServerRequest request) {
+        Long id = id(request);
+        int size = KeysetPagination.clamp(intParam(request, "limit", 20), 1000);
+        long after = KeysetPagination.decodeCursor(request.queryParam("cursor").orElse(null));
+        return postServiceR2dbc.findAllByUserId(id, after, size)
+                .map(UserPostResponse::of)
+                .collectList()
+                .flatMap(page -> userPostPages.ok(CursorPage.of(page, size, UserPostResponse::getId)));
+    }
+}
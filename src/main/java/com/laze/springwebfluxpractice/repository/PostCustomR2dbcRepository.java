@@ -3,6 +3,12 @@ package com.laze.springwebfluxpractice.repository;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 
+import java.util.List;
+
 public interface PostCustomR2dbcRepository {
     Flux<Post> findAllByUserId(Long userId);
+
+    Flux<Post> findAllByUserId(Long userId, long after, int limit);
+
+    Flux<Long> insertAll(List<Post> posts);
 }
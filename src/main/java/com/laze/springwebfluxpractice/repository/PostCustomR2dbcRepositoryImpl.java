@@ -1,48 +1,102 @@
 package com.laze.springwebfluxpractice.repository;
 
+import io.r2dbc.spi.Statement;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
 import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.binding.BindMarkers;
+import org.springframework.r2dbc.core.binding.BindMarkersFactoryResolver;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 
 import java.time.LocalDateTime;
-import java.time.ZonedDateTime;
+import java.util.List;
 
 @Repository
 @RequiredArgsConstructor
 public class PostCustomR2dbcRepositoryImpl implements PostCustomR2dbcRepository {
-    private final DatabaseClient databaseClient;
-
-    @Override
-    public Flux<Post> findAllByUserId(Long userId) {
-        var sql = """
+    // column order is read by index in PostWithUserRowMapper
+    public static final String FIND_ALL_BY_USER_ID_SQL = """
                 SELECT p.id as pid, p.user_id as userId, p.title, p.content, p.created_at as createdAt, p.updated_at as updatedAt,
                         u.id as uid, u.name as name, u.email as email, u.created_at as uCreatedAt, u.updated_at as uUpdatedAt
                 FROM posts p
                 LEFT JOIN users u ON p.user_id = u.id
                 WHERE p.user_id = :userId
         """;
-        return databaseClient.sql(sql)
+    // keyset page in id order, served by the (user_id, id) index
+    public static final String FIND_PAGE_BY_USER_ID_SQL = FIND_ALL_BY_USER_ID_SQL + """
+                AND p.id > :after
+                ORDER BY p.id
+                LIMIT :limit
+        """;
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Flux<Post> findAllByUserId(Long userId) {
+        return databaseClient.sql(FIND_ALL_BY_USER_ID_SQL + " ORDER BY p.id")
                 .bind("userId", userId)
-                .fetch()
-                .all()
-                .map(row -> Post.builder()
-                        .id((Long) row.get("pid"))
-                        .userId((Long) row.get("userId"))
-                        .title((String) row.get("title"))
-                        .content((String) row.get("content"))
-                        .user(User.builder()
-                                .id((Long)row.get("uid"))
-                                .name((String)row.get("name"))
-                                .email((String)row.get("email"))
-                                .createdAt((LocalDateTime)row.get("uCreatedAt"))
-                                .updatedAt((LocalDateTime)row.get("uUpdatedAt"))
-                                .build()
-                        )
-                        .createdAt((LocalDateTime)row.get("createdAt"))
-                        .updatedAt((LocalDateTime)row.get("updatedAt"))
-                        .build());
+                .map(new PostWithUserRowMapper())
+                .all();
+
+    }
+
+    @Override
+    public Flux<Post> findAllByUserId(Long userId, long after, int limit) {
+        return databaseClient.sql(FIND_PAGE_BY_USER_ID_SQL)
+                .bind("userId", userId)
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(new PostWithUserRowMapper())
+                .all();
+    }
+
+    // one statement with a binding per row (Statement.add): the driver executes each binding and reports its
+    // generated id, instead of a single LAST_INSERT_ID() for a multi-row VALUES list
+    @Override
+    public Flux<Long> insertAll(List<Post> posts) {
+        if (posts.isEmpty()) {
+            return Flux.empty();
+        }
+
+        BindMarkers markers = BindMarkersFactoryResolver.resolve(databaseClient.getConnectionFactory()).create();
+        String sql = "INSERT INTO posts (user_id, title, content, created_at, updated_at) VALUES (%s, %s, %s, %s, %s)"
+                .formatted(markers.next().getPlaceholder(), markers.next().getPlaceholder(),
+                        markers.next().getPlaceholder(), markers.next().getPlaceholder(),
+                        markers.next().getPlaceholder());
+        LocalDateTime now = LocalDateTime.now();
+
+        return databaseClient.inConnectionMany(connection -> {
+                    Statement statement = connection.createStatement(sql).returnGeneratedValues("id");
+                    for (int i = 0; i < posts.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        Post post = posts.get(i);
+                        bindNullable(statement, 0, post.getUserId(), Long.class);
+                        bindNullable(statement, 1, post.getTitle(), String.class);
+                        bindNullable(statement, 2, post.getContent(), String.class);
+                        statement.bind(3, now).bind(4, now);
+                    }
+                    return Flux.from(statement.execute())
+                            .concatMap(result -> result.map((row, metadata) -> row.get("id", Long.class)));
+                })
+                .collectList()
+                .flatMapIterable(ids -> {
+                    if (ids.size() != posts.size()) {
+                        throw new IncorrectResultSizeDataAccessException(
+                                "Driver returned %d generated ids for %d inserted posts".formatted(ids.size(), posts.size()),
+                                posts.size(), ids.size());
+                    }
+                    return ids;
+                });
+    }
 
+    private static <T> void bindNullable(Statement statement, int index, T value, Class<T> type) {
+        if (value == null) {
+            statement.bindNull(index, type);
+        } else {
+            statement.bind(index, value);
+        }
     }
 }
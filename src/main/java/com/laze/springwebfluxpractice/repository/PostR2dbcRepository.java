@@ -1,9 +1,17 @@
 package com.laze.springwebfluxpractice.repository;
 
 import com.laze.springwebfluxpractice.dto.PostR2dbcResponse;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import reactor.core.publisher.Flux;
 
 public interface PostR2dbcRepository extends R2dbcRepository<Post,Long>, PostCustomR2dbcRepository {
     Flux<Post> findByUserId(Long userId);
+
+    // answered from idx_posts_user_id alone
+    @Query("SELECT id FROM posts WHERE user_id = :userId ORDER BY id")
+    Flux<Long> findIdsByUserId(Long userId);
+
+    @Query("SELECT * FROM posts WHERE id > :after ORDER BY id LIMIT :limit")
+    Flux<Post> findPageAfter(Long after, int limit);
 }
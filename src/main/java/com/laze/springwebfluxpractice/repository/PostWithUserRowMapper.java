@@ -0,0 +1,48 @@
+package com.laze.springwebfluxpractice.repository;
+
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+/**
+ * Maps the posts LEFT JOIN users row of {@link PostCustomR2dbcRepositoryImpl#findAllByUserId} by column index.
+ * Consecutive rows of the same author share one {@link User}, so use a new instance per query.
+ */
+public class PostWithUserRowMapper implements BiFunction<Row, RowMetadata, Post> {
+
+    private User lastUser;
+
+    @Override
+    public Post apply(Row row, RowMetadata metadata) {
+        return Post.builder()
+                .id(row.get(0, Long.class))
+                .userId(row.get(1, Long.class))
+                .title(row.get(2, String.class))
+                .content(row.get(3, String.class))
+                .createdAt(row.get(4, LocalDateTime.class))
+                .updatedAt(row.get(5, LocalDateTime.class))
+                .user(mapUser(row))
+                .build();
+    }
+
+    private User mapUser(Row row) {
+        Long userId = row.get(6, Long.class);
+        User user = lastUser;
+        if (user != null && Objects.equals(user.getId(), userId)) {
+            return user;
+        }
+
+        user = User.builder()
+                .id(userId)
+                .name(row.get(7, String.class))
+                .email(row.get(8, String.class))
+                .createdAt(row.get(9, LocalDateTime.class))
+                .updatedAt(row.get(10, LocalDateTime.class))
+                .build();
+        lastUser = user;
+        return user;
+    }
+}
@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.ReadOnlyProperty;
 import org.springframework.data.relational.core.mapping.Table;
 
 import java.time.LocalDateTime;
@@ -29,4 +30,11 @@ public class User {
     @LastModifiedDate
     private LocalDateTime updatedAt;
 
+    // maintained by UserCustomR2dbcRepository.updatePartial when app.users.versioned is on, never written by save
+    @ReadOnlyProperty
+    private Long version;
+
+    public User(Long id, String name, String email, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, name, email, createdAt, updatedAt, null);
+    }
 }
@@ -0,0 +1,489 @@
+package com.laze.springwebfluxpractice.repository;
+
+import com.laze.springwebfluxpractice.cache.UserBinaryRedisSerializer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only change log plus compacted snapshots for {@link UserRepositoryImpl}.
+ * <pre>
+ * log-&lt;gen&gt;.bin:      [magic "ULOG"] then records
+ * snapshot-&lt;gen&gt;.bin: [magic "USNP"][sequence: int64] then SAVE records
+ * record:              [type: 1 byte][length: int32][payload][crc32c of type + payload: int32]
+ * </pre>
+ * SAVE payloads are the {@link UserBinaryRedisSerializer} encoding, DELETE payloads are the id.
+ * <p>
+ * A single writer thread drains everything appended while the previous write was in flight and forces
+ * it to disk once (group commit); the futures returned by {@link #appendSave}/{@link #appendDelete}
+ * complete after that. Snapshot {@code gen} is taken right after the writer switches to {@code log-gen},
+ * so recovery is the newest snapshot followed by every log from its generation on. Replay is idempotent
+ * (last write per id wins), which lets the snapshot iterate the live map without stopping writers.
+ * <p>
+ * A failed write fails its whole batch, cuts the log back to the last acknowledged record and continues in a
+ * fresh generation, so no acknowledged record ever sits behind a torn one. If that is not possible either,
+ * the log stops accepting writes.
+ */
+@Slf4j
+public class UserChangeLog implements Closeable {
+
+    private static final int LOG_MAGIC = 0x554C4F47;
+    private static final int SNAPSHOT_MAGIC = 0x55534E50;
+    private static final byte SAVE = 1;
+    private static final byte DELETE = 2;
+    private static final int RECORD_OVERHEAD = 1 + Integer.BYTES + Integer.BYTES;
+    private static final int MAX_BATCH = 4096;
+
+    private final Path directory;
+    private final boolean fsync;
+    private final long snapshotLogSize;
+    private final UserBinaryRedisSerializer codec = new UserBinaryRedisSerializer(null, Integer.MAX_VALUE);
+    private final LinkedBlockingQueue<Write> queue = new LinkedBlockingQueue<>();
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(1 << 20);
+    private final ExecutorService snapshotExecutor = Executors.newSingleThreadExecutor(r -> daemon(r, "user-snapshot"));
+    private final AtomicBoolean snapshotRunning = new AtomicBoolean();
+
+    private volatile boolean running = true;
+    private volatile CompletableFuture<Void> lastSnapshot = CompletableFuture.completedFuture(null);
+    private volatile long generation;
+    private volatile IOException failure;
+    private FileChannel channel;
+    private long acknowledgedSize;
+    private Thread writer;
+    private Supplier<Iterable<User>> snapshotSource;
+    private LongSupplier sequenceSource;
+
+    private UserChangeLog(Path directory, boolean fsync, long snapshotLogSize) {
+        this.directory = directory;
+        this.fsync = fsync;
+        this.snapshotLogSize = snapshotLogSize;
+    }
+
+    public static UserChangeLog open(Path directory, boolean fsync, long snapshotLogSize) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new UserChangeLog(directory, fsync, snapshotLogSize);
+    }
+
+    /**
+     * Replays the newest snapshot and the logs after it. Returns the next id to assign: the snapshot's sequence
+     * or one past the highest id in any replayed record, deleted ones included, whichever is larger.
+     * Torn records at the tail of a log are ignored.
+     */
+    public long recover(Consumer<User> onSave, LongConsumer onDelete) {
+        long[] highestId = {0};
+        Consumer<User> save = user -> {
+            highestId[0] = Math.max(highestId[0], user.getId());
+            onSave.accept(user);
+        };
+        LongConsumer delete = id -> {
+            highestId[0] = Math.max(highestId[0], id);
+            onDelete.accept(id);
+        };
+        try {
+            long snapshotGen = newestGeneration("snapshot-");
+            long sequence = 0;
+            if (snapshotGen >= 0) {
+                sequence = replay(file("snapshot-", snapshotGen), SNAPSHOT_MAGIC, save, delete);
+            }
+
+            long lastGen = Math.max(snapshotGen, 0);
+            try (Stream<Path> logs = Files.list(directory)) {
+                List<Long> generations = logs.map(p -> generationOf(p, "log-"))
+                        .filter(gen -> gen >= Math.max(snapshotGen, 0))
+                        .sorted()
+                        .toList();
+                for (long gen : generations) {
+                    replay(file("log-", gen), LOG_MAGIC, save, delete);
+                    lastGen = Math.max(lastGen, gen);
+                }
+            }
+
+            // never append behind a possibly torn tail: continue in a fresh generation
+            generation = lastGen + 1;
+            return Math.max(sequence, highestId[0] + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void start(Supplier<Iterable<User>> snapshotSource, LongSupplier sequenceSource) {
+        this.snapshotSource = snapshotSource;
+        this.sequenceSource = sequenceSource;
+        try {
+            channel = openLog(generation);
+            acknowledgedSize = channel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        writer = daemon(this::writeLoop, "user-change-log");
+        writer.start();
+    }
+
+    public CompletableFuture<Void> appendSave(User user) {
+        return enqueue(new Write(SAVE, codec.serialize(user)));
+    }
+
+    public CompletableFuture<Void> appendDelete(long id) {
+        return enqueue(new Write(DELETE, ByteBuffer.allocate(Long.BYTES).putLong(id).array()));
+    }
+
+    // at most one snapshot at a time; a request while one is running joins it
+    public CompletableFuture<Void> snapshot() {
+        if (!snapshotRunning.compareAndSet(false, true)) {
+            return lastSnapshot;
+        }
+
+        lastSnapshot = CompletableFuture.runAsync(this::writeSnapshot, snapshotExecutor)
+                .whenComplete((v, err) -> {
+                    snapshotRunning.set(false);
+                    if (err != null) {
+                        log.error("User snapshot failed", err);
+                    }
+                });
+        return lastSnapshot;
+    }
+
+    // leaves a fresh snapshot behind so the next start does not replay the log
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+
+        lastSnapshot.exceptionally(err -> null).join();
+        snapshot().exceptionally(err -> null).join();
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+            channel.close();
+        } catch (IOException e) {
+            log.error("Failed to close user change log", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        snapshotExecutor.shutdown();
+    }
+
+    private CompletableFuture<Void> enqueue(Write write) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new IllegalStateException("User change log is closed"));
+        }
+        if (failure != null) {
+            return CompletableFuture.failedFuture(failure);
+        }
+        queue.add(write);
+        return write.done;
+    }
+
+    private void writeLoop() {
+        List<Write> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                Write first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<Write> batch) {
+        if (failure != null) {
+            batch.forEach(write -> write.done.completeExceptionally(failure));
+            return;
+        }
+
+        List<Write> written = new ArrayList<>(batch.size());
+        try {
+            for (Write write : batch) {
+                if (write.type == Write.ROTATE) {
+                    completeWritten(written);
+                    rotate();
+                    write.generation = generation;
+                    write.done.complete(null);
+                    continue;
+                }
+                put(write);
+                written.add(write);
+            }
+            completeWritten(written);
+
+            if (channel.size() >= snapshotLogSize) {
+                snapshot();
+            }
+        } catch (IOException e) {
+            log.error("Failed to append {} user changes", batch.size(), e);
+            batch.forEach(write -> write.done.completeExceptionally(e));
+            discardUnacknowledged();
+        }
+    }
+
+    // a partial write may have left a torn record: cut back to the last acknowledged one and never append to
+    // this log again, since replay stops at the first bad record
+    private void discardUnacknowledged() {
+        writeBuffer.clear();
+        Path torn = file("log-", generation);
+        try {
+            channel.truncate(acknowledgedSize);
+            channel.force(false);
+        } catch (IOException e) {
+            log.warn("Could not truncate {} to {} bytes, unacknowledged records may replay", torn, acknowledgedSize, e);
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close {}", torn, e);
+        }
+
+        try {
+            generation++;
+            channel = openLog(generation);
+            acknowledgedSize = channel.size();
+        } catch (IOException e) {
+            failure = e;
+            log.error("User change log stopped accepting writes", e);
+        }
+    }
+
+    private void completeWritten(List<Write> written) throws IOException {
+        if (written.isEmpty()) {
+            return;
+        }
+        drain();
+        if (fsync) {
+            channel.force(false);
+        }
+        acknowledgedSize = channel.size();
+        written.forEach(write -> write.done.complete(null));
+        written.clear();
+    }
+
+    private void put(Write write) throws IOException {
+        if (writeBuffer.remaining() < RECORD_OVERHEAD + write.payload.length) {
+            drain();
+        }
+        if (writeBuffer.remaining() < RECORD_OVERHEAD + write.payload.length) {
+            writeFully(channel, ByteBuffer.wrap(encode(write.type, write.payload)));
+            return;
+        }
+        writeBuffer.put(write.type)
+                .putInt(write.payload.length)
+                .put(write.payload)
+                .putInt(crc(write.type, write.payload));
+    }
+
+    private void drain() throws IOException {
+        writeBuffer.flip();
+        writeFully(channel, writeBuffer);
+        writeBuffer.clear();
+    }
+
+    private void rotate() throws IOException {
+        drain();
+        channel.force(false);
+        channel.close();
+        generation++;
+        channel = openLog(generation);
+        acknowledgedSize = channel.size();
+    }
+
+    private void writeSnapshot() {
+        // the writer switches logs first; everything after this point is also in log-<gen>
+        var rotated = new Write(Write.ROTATE, new byte[0]);
+        enqueue(rotated).join();
+        long gen = rotated.generation;
+        long sequence = sequenceSource.getAsLong();
+
+        Path target = file("snapshot-", gen);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            buffer.putInt(SNAPSHOT_MAGIC).putLong(sequence);
+            for (User user : snapshotSource.get()) {
+                byte[] record = encode(SAVE, codec.serialize(user));
+                if (buffer.remaining() < record.length) {
+                    buffer.flip();
+                    writeFully(out, buffer);
+                    buffer.clear();
+                }
+                if (record.length > buffer.capacity()) {
+                    writeFully(out, ByteBuffer.wrap(record));
+                } else {
+                    buffer.put(record);
+                }
+            }
+            buffer.flip();
+            writeFully(out, buffer);
+            out.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            deleteOlderThan(gen);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Wrote user snapshot generation {}", gen);
+    }
+
+    private void deleteOlderThan(long gen) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.toList()) {
+                long fileGen = Math.max(generationOf(path, "log-"), generationOf(path, "snapshot-"));
+                if (fileGen >= 0 && fileGen < gen) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    // memory-mapped read; stops at the first incomplete or corrupt record
+    private long replay(Path path, int magic, Consumer<User> onSave, LongConsumer onDelete) throws IOException {
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (in.size() > Integer.MAX_VALUE) {
+                throw new IOException("%s is larger than 2GB, snapshot more often".formatted(path));
+            }
+            MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            if (buffer.remaining() < Integer.BYTES || buffer.getInt() != magic) {
+                log.warn("Skipping {}: missing header", path);
+                return 0;
+            }
+            long sequence = magic == SNAPSHOT_MAGIC ? buffer.getLong() : 0;
+
+            while (buffer.remaining() >= RECORD_OVERHEAD) {
+                int start = buffer.position();
+                byte type = buffer.get();
+                int length = buffer.getInt();
+                if (length < 0 || buffer.remaining() < length + Integer.BYTES) {
+                    log.warn("Torn record at {}:{}", path, start);
+                    break;
+                }
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+                if (buffer.getInt() != crc(type, payload)) {
+                    log.warn("Corrupt record at {}:{}", path, start);
+                    break;
+                }
+                if (type == SAVE) {
+                    onSave.accept(codec.deserialize(payload));
+                } else if (type == DELETE) {
+                    onDelete.accept(ByteBuffer.wrap(payload).getLong());
+                }
+            }
+            return sequence;
+        }
+    }
+
+    private FileChannel openLog(long gen) throws IOException {
+        Path path = file("log-", gen);
+        boolean fresh = Files.notExists(path) || Files.size(path) == 0;
+        FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (fresh) {
+            writeFully(out, ByteBuffer.allocate(Integer.BYTES).putInt(LOG_MAGIC).flip());
+        }
+        return out;
+    }
+
+    private long newestGeneration(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(p -> generationOf(p, prefix)).max().orElse(-1);
+        }
+    }
+
+    private Path file(String prefix, long gen) {
+        return directory.resolve("%s%020d.bin".formatted(prefix, gen));
+    }
+
+    private static long generationOf(Path path, String prefix) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(prefix) || !name.endsWith(".bin")) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name, prefix.length(), name.length() - ".bin".length(), 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static byte[] encode(byte type, byte[] payload) {
+        return ByteBuffer.allocate(RECORD_OVERHEAD + payload.length)
+                .put(type)
+                .putInt(payload.length)
+                .put(payload)
+                .putInt(crc(type, payload))
+                .array();
+    }
+
+    private static int crc(byte type, byte[] payload) {
+        var crc = new CRC32C();
+        crc.update(type);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static final class Write {
+        static final byte ROTATE = 0;
+
+        final byte type;
+        final byte[] payload;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        // the generation a ROTATE switched to
+        volatile long generation;
+
+        Write(byte type, byte[] payload) {
+            this.type = type;
+            this.payload = payload;
+        }
+    }
+}
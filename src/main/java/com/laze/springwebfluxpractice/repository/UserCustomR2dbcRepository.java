@@ -0,0 +1,9 @@
+package com.laze.springwebfluxpractice.repository;
+
+import reactor.core.publisher.Mono;
+
+public interface UserCustomR2dbcRepository {
+    Mono<Long> updatePartial(Long id, String name, String email, Long expectedVersion);
+
+    Mono<Long> writeBack(Long id, String name, String email, Long version);
+}
@@ -0,0 +1,65 @@
+package com.laze.springwebfluxpractice.repository;
+
+import com.laze.springwebfluxpractice.config.UserProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+@Repository
+@RequiredArgsConstructor
+public class UserCustomR2dbcRepositoryImpl implements UserCustomR2dbcRepository {
+    private final DatabaseClient databaseClient;
+    private final UserProperties userProperties;
+
+    // one UPDATE for the non-null fields; returns rows affected (0 = missing id or version mismatch)
+    @Override
+    public Mono<Long> updatePartial(Long id, String name, String email, Long expectedVersion) {
+        return update(id, name, email, expectedVersion, null);
+    }
+
+    // write-behind flush: the cached copy already carries the new version, so it is written as is
+    // (no increment, no check) and the database ends up at the version clients were given as ETag
+    @Override
+    public Mono<Long> writeBack(Long id, String name, String email, Long version) {
+        return update(id, name, email, null, version);
+    }
+
+    private Mono<Long> update(Long id, String name, String email, Long expectedVersion, Long newVersion) {
+        boolean versioned = userProperties.isVersioned();
+        var sql = new StringBuilder("UPDATE users SET updated_at = :updatedAt");
+        if (name != null) {
+            sql.append(", name = :name");
+        }
+        if (email != null) {
+            sql.append(", email = :email");
+        }
+        if (versioned) {
+            sql.append(newVersion != null ? ", version = :newVersion" : ", version = version + 1");
+        }
+        sql.append(" WHERE id = :id");
+        if (versioned && expectedVersion != null) {
+            sql.append(" AND version = :version");
+        }
+
+        var spec = databaseClient.sql(sql.toString())
+                .bind("updatedAt", LocalDateTime.now())
+                .bind("id", id);
+        if (name != null) {
+            spec = spec.bind("name", name);
+        }
+        if (email != null) {
+            spec = spec.bind("email", email);
+        }
+        if (versioned && expectedVersion != null) {
+            spec = spec.bind("version", expectedVersion);
+        }
+        if (versioned && newVersion != null) {
+            spec = spec.bind("newVersion", newVersion);
+        }
+
+        return spec.fetch().rowsUpdated();
+    }
+}
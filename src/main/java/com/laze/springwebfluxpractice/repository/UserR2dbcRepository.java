@@ -6,10 +6,13 @@ import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-public interface UserR2dbcRepository extends ReactiveCrudRepository<User, Long> {
+public interface UserR2dbcRepository extends ReactiveCrudRepository<User, Long>, UserCustomR2dbcRepository {
     Flux<User> findByName(String name);
     Flux<User> findByNameOrderByIdDesc(String name);
 
+    @Query("SELECT * FROM users WHERE id > :after ORDER BY id LIMIT :limit")
+    Flux<User> findPageAfter(Long after, int limit);
+
     @Modifying
     @Query("DELETE FROM users WHERE name = :name")
     Mono<Void> deleteByName(String name);
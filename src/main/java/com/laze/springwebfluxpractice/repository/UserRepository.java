@@ -8,6 +8,8 @@ import reactor.core.publisher.Mono;
 public interface UserRepository {
     Mono<User> save(User user);
     Flux<User> findAll();
+    Flux<User> findByName(String name);
+    Flux<User> findPageAfter(Long after, int limit);
     Mono<User> findById(Long id);
     Mono<Integer> deleteById(Long id);
 }
\ No newline at end of file
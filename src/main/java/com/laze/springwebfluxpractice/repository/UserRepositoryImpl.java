@@ -1,17 +1,87 @@
 package com.laze.springwebfluxpractice.repository;
 
+import com.laze.springwebfluxpractice.config.UserProperties;
+import org.jctools.maps.NonBlockingHashMapLong;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * In-memory users keyed by primitive id. {@code idIndex} keeps ids sorted for ordered and ranged scans,
+ * {@code nameIndex} mirrors {@link UserR2dbcRepository#findByName}. With {@code maxEntries > 0} the lowest
+ * (oldest) ids are evicted once the bound is exceeded. Changes to one id are serialized by a per-id stripe lock,
+ * so {@code users} and the indexes agree even when a save races a delete of the same id.
+ * <p>
+ * With a {@link UserChangeLog} a change reaches the map only once its append is durable, so a failed append
+ * leaves memory as it was. Append and apply callback are registered under the stripe lock and the single log
+ * writer completes appends in log order, so the map sees the changes of an id in log order. A memory bound would
+ * have to delete persisted users, so {@code maxEntries} and a change log are mutually exclusive.
+ */
 @Repository
-public class UserRepositoryImpl implements UserRepository{
-    private final ConcurrentHashMap<Long, User> userHashMap = new ConcurrentHashMap<>();
+public class UserRepositoryImpl implements UserRepository, DisposableBean {
+    private final NonBlockingHashMapLong<User> users = new NonBlockingHashMapLong<>();
+    private final ConcurrentSkipListSet<Long> idIndex = new ConcurrentSkipListSet<>();
+    private final ConcurrentHashMap<String, Set<Long>> nameIndex = new ConcurrentHashMap<>();
     private final AtomicLong sequence = new AtomicLong(1L);
+    private final AtomicLong evictions = new AtomicLong();
+    private final int maxEntries;
+    private final UserChangeLog changeLog;
+    private final Object[] stripes;
+
+    public UserRepositoryImpl() {
+        this(0);
+    }
+
+    public UserRepositoryImpl(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    @Autowired
+    public UserRepositoryImpl(UserProperties userProperties) {
+        this(userProperties.getMemory().getMaxEntries(), openChangeLog(userProperties.getMemory().getPersistence()));
+    }
+
+    public UserRepositoryImpl(int maxEntries, UserChangeLog changeLog) {
+        if (maxEntries > 0 && changeLog != null) {
+            throw new IllegalArgumentException("app.users.memory.max-entries cannot be combined with persistence");
+        }
+        this.maxEntries = maxEntries;
+        this.changeLog = changeLog;
+        this.stripes = newStripes();
+        if (changeLog != null) {
+            long recovered = changeLog.recover(this::apply, id -> unapply(id));
+            long next = idIndex.isEmpty() ? 1L : idIndex.last() + 1;
+            sequence.set(Math.max(Math.max(recovered, next), sequence.get()));
+            changeLog.start(() -> () -> idIndex.stream().map(users::get).filter(Objects::nonNull).iterator(), sequence::get);
+        }
+    }
+
+    private static UserChangeLog openChangeLog(UserProperties.Persistence persistence) {
+        if (!persistence.isEnabled()) {
+            return null;
+        }
+        return UserChangeLog.open(Path.of(persistence.getDirectory()), persistence.isFsync(),
+                persistence.getSnapshotLogSize().toBytes());
+    }
+
+    private static Object[] newStripes() {
+        Object[] locks = new Object[64];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
 
     @Override
     public Mono<User> save(User user) {
@@ -23,28 +93,145 @@ public class UserRepositoryImpl implements UserRepository{
         }
 
         user.setUpdatedAt(now);
-        userHashMap.put(user.getId(), user);
-        return Mono.just(user);
+        long id = user.getId();
+        if (changeLog == null) {
+            synchronized (stripe(id)) {
+                apply(user);
+            }
+            if (maxEntries > 0) {
+                evictOverflow();
+            }
+            return Mono.just(user);
+        }
+
+        CompletableFuture<Void> applied;
+        synchronized (stripe(id)) {
+            applied = changeLog.appendSave(user).thenRun(() -> apply(user));
+        }
+        return Mono.fromFuture(applied).thenReturn(user);
+    }
+
+    private void apply(User user) {
+        long id = user.getId();
+        User previous = users.put(id, user);
+        if (previous == null) {
+            idIndex.add(id);
+        } else if (previous.getName() != null && !previous.getName().equals(user.getName())) {
+            unindexName(previous.getName(), id);
+        }
+        if (user.getName() != null) {
+            nameIndex.compute(user.getName(), (n, ids) -> {
+                Set<Long> indexed = ids != null ? ids : new ConcurrentSkipListSet<>();
+                indexed.add(id);
+                return indexed;
+            });
+        }
+    }
+
+    private boolean unapply(long id) {
+        User removed = users.remove(id);
+        if (removed == null) {
+            return false;
+        }
+
+        idIndex.remove(id);
+        if (removed.getName() != null) {
+            unindexName(removed.getName(), id);
+        }
+        return true;
     }
 
     @Override
     public Flux<User> findAll() {
-        return Flux.fromIterable(userHashMap.values());
+        return Flux.fromIterable(idIndex)
+                .mapNotNull(users::get);
+    }
+
+    // index entries can briefly lag a concurrent rename, so the current name is re-checked
+    @Override
+    public Flux<User> findByName(String name) {
+        Set<Long> ids = nameIndex.get(name);
+        if (ids == null) {
+            return Flux.empty();
+        }
+
+        return Flux.fromIterable(ids)
+                .mapNotNull(users::get)
+                .filter(user -> name.equals(user.getName()));
+    }
+
+    @Override
+    public Flux<User> findPageAfter(Long after, int limit) {
+        return Flux.fromIterable(idIndex.tailSet(after == null ? 0L : after, false))
+                .mapNotNull(users::get)
+                .take(limit);
     }
 
     @Override
     public Mono<User> findById(Long id) {
-        return Mono.justOrEmpty(userHashMap.getOrDefault(id, null));
+        return Mono.justOrEmpty(users.get((long) id));
     }
 
     @Override
     public Mono<Integer> deleteById(Long id) {
-        User user = userHashMap.getOrDefault(id, null);
-        if (user == null) {
-            return Mono.just(0);
+        if (changeLog == null) {
+            synchronized (stripe(id)) {
+                return Mono.just(unapply(id) ? 1 : 0);
+            }
         }
 
-        userHashMap.remove(id, user);
-        return Mono.just(1);
+        CompletableFuture<Integer> removed = removeLogged(id);
+        return removed == null ? Mono.just(0) : Mono.fromFuture(removed);
+    }
+
+    public int size() {
+        return users.size();
+    }
+
+    public long evictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public void destroy() {
+        if (changeLog != null) {
+            changeLog.close();
+        }
+    }
+
+    // null when the id was not present; removed from the map once the DELETE is durable
+    private CompletableFuture<Integer> removeLogged(long id) {
+        synchronized (stripe(id)) {
+            if (!users.containsKey(id)) {
+                return null;
+            }
+            return changeLog.appendDelete(id).thenApply(v -> unapply(id) ? 1 : 0);
+        }
+    }
+
+    private Object stripe(long id) {
+        return stripes[(int) (id ^ (id >>> 32)) & (stripes.length - 1)];
+    }
+
+    private void unindexName(String name, long id) {
+        nameIndex.computeIfPresent(name, (n, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    // only without a change log, see the constructor
+    private void evictOverflow() {
+        while (users.size() > maxEntries) {
+            Long oldest = idIndex.pollFirst();
+            if (oldest == null) {
+                return;
+            }
+            synchronized (stripe(oldest)) {
+                if (unapply(oldest)) {
+                    evictions.incrementAndGet();
+                }
+            }
+        }
     }
 }
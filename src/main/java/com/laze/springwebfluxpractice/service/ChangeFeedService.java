@@ -0,0 +1,221 @@
+package com.laze.springwebfluxpractice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.laze.springwebfluxpractice.config.ChangeFeedProperties;
+import com.laze.springwebfluxpractice.config.RedisConfig;
+import com.laze.springwebfluxpractice.dto.ChangeEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.ConnectableFlux;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Change feed for users and posts.
+ * <p>
+ * Publishers only hand the event to a single dispatcher thread, which stamps it, appends it to the resume
+ * history and emits it into a best-effort multicast sink; a slow subscriber never holds up publishers or other
+ * subscribers because each one reads through its own bounded buffer. Local events are relayed over Redis
+ * pub/sub and events from other nodes (different origin) are dispatched the same way.
+ */
+@Service
+@Slf4j
+public class ChangeFeedService implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    private final ChangeFeedProperties properties;
+    private final ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+    // ISO dates so relayed payloads look the same as local ones
+    private final ObjectMapper objectMapper = RedisConfig.redisObjectMapper()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Sinks.Many<ChangeEvent> sink = Sinks.many().multicast().directBestEffort();
+    private final Scheduler dispatcher = Schedulers.newSingle("change-feed");
+    private final History history;
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Counter overflows;
+    private long sequence;
+    private long position;
+    private Disposable relaySubscription;
+
+    public ChangeFeedService(ChangeFeedProperties properties,
+                             ReactiveRedisTemplate<String, String> reactiveRedisTemplate,
+                             MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.history = new History(properties.getHistorySize());
+        this.overflows = meterRegistry.counter("changes.subscriber.overflow");
+        meterRegistry.gauge("changes.subscribers", subscribers);
+    }
+
+    public void publish(String entity, String type, Long entityId, Object data) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        var event = ChangeEvent.builder()
+                .entity(entity)
+                .type(type)
+                .entityId(entityId)
+                .data(data)
+                .origin(nodeId)
+                .build();
+        dispatcher.schedule(() -> {
+            event.setId("%d-%d".formatted(System.currentTimeMillis(), ++sequence));
+            dispatch(event);
+            relay(event);
+        });
+    }
+
+    /**
+     * Live events for the given entities (all when empty). With a lastEventId still in the history, the events
+     * after it are replayed first; an id that is no longer (or never was) there yields a single "reset" event
+     * so the client reloads its state instead of silently missing changes.
+     */
+    public Flux<ChangeEvent> subscribe(Set<String> entities, String lastEventId) {
+        // publish and publishOn hold prefetched events too; they get a small share of subscriber-buffer and the
+        // overflow buffer the rest, so the configured bound is the real one
+        int buffer = properties.getSubscriberBuffer();
+        int prefetch = Math.max(1, Math.min(32, buffer / 8));
+        int overflowBuffer = Math.max(1, buffer - 2 * prefetch);
+        return Flux.defer(() -> {
+            ConnectableFlux<ChangeEvent> live = sink.asFlux()
+                    .onBackpressureBuffer(overflowBuffer, dropped -> overflows.increment(),
+                            properties.getOverflow())
+                    .publish(prefetch);
+            // connect before reading the history so nothing falls between the two
+            Disposable connection = live.connect();
+
+            Replay replay = lastEventId == null ? new Replay(List.of(), -1, false) : history.after(lastEventId);
+            long replayedUpTo = replay.lastPosition();
+            Flux<ChangeEvent> reset = replay.found()
+                    ? Flux.empty()
+                    : Flux.just(ChangeEvent.builder().type("reset").origin(nodeId).build());
+
+            return Flux.concat(
+                            lastEventId == null ? Flux.<ChangeEvent>empty() : reset,
+                            Flux.fromIterable(replay.events()),
+                            live.filter(event -> event.getPosition() > replayedUpTo))
+                    .filter(event -> event.getEntity() == null || entities.isEmpty() || entities.contains(event.getEntity()))
+                    // encoding and writing happen off the dispatcher thread
+                    .publishOn(Schedulers.parallel(), prefetch)
+                    .doOnSubscribe(s -> subscribers.incrementAndGet())
+                    .doFinally(signal -> {
+                        subscribers.decrementAndGet();
+                        connection.dispose();
+                    });
+        });
+    }
+
+    public int subscriberCount() {
+        return subscribers.get();
+    }
+
+    // dispatcher thread only
+    private void dispatch(ChangeEvent event) {
+        event.setPosition(++position);
+        history.add(event);
+        sink.tryEmitNext(event);
+    }
+
+    private void relay(ChangeEvent event) {
+        if (!properties.getRelay().isEnabled()) {
+            return;
+        }
+
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to encode change event {}: {}", event.getId(), e.getMessage());
+            return;
+        }
+        reactiveRedisTemplate.convertAndSend(properties.getRelay().getChannel(), json)
+                .subscribe(null, err -> log.warn("Failed to relay change event {}: {}", event.getId(), err.getMessage()));
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!properties.isEnabled() || !properties.getRelay().isEnabled()) {
+            return;
+        }
+
+        relaySubscription = reactiveRedisTemplate
+                .listenToChannel(properties.getRelay().getChannel())
+                .map(ReactiveSubscription.Message::getMessage)
+                .concatMap(message -> {
+                    try {
+                        return Flux.just(objectMapper.readValue(message, ChangeEvent.class));
+                    } catch (JsonProcessingException e) {
+                        log.warn("Ignoring malformed change event: {}", e.getMessage());
+                        return Flux.empty();
+                    }
+                })
+                .filter(change -> !nodeId.equals(change.getOrigin()))
+                .doOnNext(change -> dispatcher.schedule(() -> dispatch(change)))
+                .doOnError(err -> log.error("Change feed relay listener failed: {}", err.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    @Override
+    public void destroy() {
+        if (relaySubscription != null) {
+            relaySubscription.dispose();
+        }
+        sink.tryEmitComplete();
+        dispatcher.dispose();
+    }
+
+    private record Replay(List<ChangeEvent> events, long lastPosition, boolean found) {
+    }
+
+    // ring buffer of the most recent events in arrival order
+    private static final class History {
+        private final ChangeEvent[] ring;
+        private long written;
+
+        History(int size) {
+            this.ring = new ChangeEvent[Math.max(size, 1)];
+        }
+
+        synchronized void add(ChangeEvent event) {
+            ring[(int) (written++ % ring.length)] = event;
+        }
+
+        synchronized Replay after(String lastEventId) {
+            long oldest = Math.max(0, written - ring.length);
+            long lastPosition = written == 0 ? -1 : ring[(int) ((written - 1) % ring.length)].getPosition();
+            for (long i = written - 1; i >= oldest; i--) {
+                if (!lastEventId.equals(ring[(int) (i % ring.length)].getId())) {
+                    continue;
+                }
+                List<ChangeEvent> events = new ArrayList<>((int) (written - i - 1));
+                for (long j = i + 1; j < written; j++) {
+                    events.add(ring[(int) (j % ring.length)]);
+                }
+                return new Replay(events, lastPosition, true);
+            }
+            return new Replay(List.of(), lastPosition, false);
+        }
+    }
+}
@@ -1,17 +1,46 @@
 package com.laze.springwebfluxpractice.service;
 
 import com.laze.springwebfluxpractice.client.PostClient;
+import com.laze.springwebfluxpractice.config.PostProperties;
 import com.laze.springwebfluxpractice.dto.PostResponse;
+import com.laze.springwebfluxpractice.support.FanOut;
+import com.laze.springwebfluxpractice.support.StageMetrics;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class PostService {
-    private PostClient postClient;
+    private final PostClient postClient;
+    private final PostProperties postProperties;
+    private final StageMetrics stageMetrics;
 
     public Mono<PostResponse> getPostContent(Long id) {
-        return postClient.getPost(id);
+        return postClient.getPost(id)
+                .onErrorResume(error -> postClient.getStale(id)
+                        .switchIfEmpty(Mono.fromSupplier(() -> new PostResponse(id.toString(), "Fallback data %d".formatted(id)))));
+    }
+
+    public Flux<PostResponse> getPostContents(List<Long> ids, Boolean preserveOrder) {
+        var search = postProperties.getSearch();
+        if (ids.size() > search.getMaxIds()) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "at most %d ids per request".formatted(search.getMaxIds())));
+        }
+
+        var options = new FanOut.Options(
+                search.getMaxConcurrency(),
+                preserveOrder == null ? search.isPreserveOrder() : preserveOrder,
+                search.getDeadline());
+        // fanout.in-flight shows how much of max-concurrency is actually used
+        Flux<PostResponse> results = FanOut.execute(ids,
+                id -> stageMetrics.inFlight(getPostContent(id), "fanout", "name", "posts.search"), options);
+        return stageMetrics.timed(results, "fanout", "name", "posts.search");
     }
 }
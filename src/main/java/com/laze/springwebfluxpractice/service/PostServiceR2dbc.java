@@ -1,16 +1,35 @@
 package com.laze.springwebfluxpractice.service;
 
+import com.laze.springwebfluxpractice.cache.UserPostCache;
+import com.laze.springwebfluxpractice.config.PostProperties;
+import com.laze.springwebfluxpractice.dto.PostR2dbcResponse;
 import com.laze.springwebfluxpractice.repository.Post;
 import com.laze.springwebfluxpractice.repository.PostR2dbcRepository;
+import com.laze.springwebfluxpractice.repository.User;
+import com.laze.springwebfluxpractice.support.BatchLoader;
+import com.laze.springwebfluxpractice.support.KeysetPagination;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
 @Service
 @RequiredArgsConstructor
 public class PostServiceR2dbc {
     private final PostR2dbcRepository postR2dbcRepository;
+    private final BatchLoader<Long, Post> postBatchLoader;
+    private final PostProperties postProperties;
+    private final UserService userService;
+    private final UserPostCache userPostCache;
+    private final ChangeFeedService changeFeedService;
+    private final TransactionalOperator transactionalOperator;
 
     // create
     public Mono<Post> create(Long userId, String title, String content) {
@@ -19,24 +38,124 @@ public class PostServiceR2dbc {
                 .title(title)
                 .content(content)
                 .build()
-        );
+        ).doOnNext(post -> {
+            userPostCache.invalidateUser(userId);
+            changeFeedService.publish("post", "created", post.getId(), PostR2dbcResponse.of(post));
+        });
+    }
+
+    // each chunk is one batched INSERT in its own transaction, so a failed chunk leaves no rows behind;
+    // concatMap only pulls the next chunk once the previous one is committed
+    public Flux<Long> createAll(Flux<Post> posts) {
+        return posts.buffer(postProperties.getBulk().getChunkSize())
+                .concatMap(chunk -> transactionalOperator.transactional(postR2dbcRepository.insertAll(chunk))
+                        .doOnComplete(() -> chunk.stream()
+                                .map(Post::getUserId)
+                                .distinct()
+                                .forEach(userPostCache::invalidateUser)), 1);
     }
+
     // read
     public Flux<Post> findAll() {
         return postR2dbcRepository.findAll();
     }
 
+    public Flux<Post> findPage(long after, int limit) {
+        return postR2dbcRepository.findPageAfter(after, limit);
+    }
+
+    public Flux<Post> streamAll(int fetchSize) {
+        return KeysetPagination.stream(postR2dbcRepository::findPageAfter, Post::getId, fetchSize);
+    }
+
     public Mono<Post> findById(Long id) {
-        return postR2dbcRepository.findById(id);
+        return postBatchLoader.load(id);
     }
 
     public Flux<Post> findAllByUserId(Long userId) {
-        return postR2dbcRepository.findAllByUserId(userId);
+        return findAllByUserId(userId, 0L, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Posts of one user with id > after, ascending. The id list and bodies come from UserPostCache and
+     * only misses hit the database (by user_id / primary key, no join), load-chunk-size ids per query so a
+     * prolific author streams instead of becoming one huge IN list; the author is resolved once through
+     * UserService's cache. Without the cache the page is a keyset query on the join.
+     */
+    public Flux<Post> findAllByUserId(Long userId, long after, int limit) {
+        if (!postProperties.getUserPosts().isCacheEnabled()) {
+            return postR2dbcRepository.findAllByUserId(userId, after, limit);
+        }
+
+        Mono<Optional<User>> author = userService.findById(userId)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .cache();
+        return postIds(userId)
+                .flatMapIterable(ids -> slice(ids, after, limit))
+                .buffer(postProperties.getUserPosts().getLoadChunkSize())
+                .concatMap(chunk -> loadPosts(chunk).zipWith(author))
+                .flatMapIterable(page -> page.getT1().stream()
+                        .map(post -> withUser(post, page.getT2().orElse(null)))
+                        .toList());
+    }
+
+    private Mono<long[]> postIds(Long userId) {
+        long[] cached = userPostCache.getPostIds(userId);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        return postR2dbcRepository.findIdsByUserId(userId)
+                .collectList()
+                .map(ids -> ids.stream().mapToLong(Long::longValue).toArray())
+                .doOnNext(ids -> userPostCache.putPostIds(userId, ids));
+    }
+
+    private static List<Long> slice(long[] ids, long after, int limit) {
+        int from = Arrays.binarySearch(ids, after);
+        from = from >= 0 ? from + 1 : -from - 1;
+        int to = (int) Math.min(ids.length, (long) from + limit);
+        return Arrays.stream(ids, from, to).boxed().toList();
+    }
+
+    // bodies in the order of ids; ids deleted since the list was cached are skipped
+    private Mono<List<Post>> loadPosts(List<Long> ids) {
+        Map<Long, Post> cached = userPostCache.getAll(ids);
+        List<Long> misses = ids.stream()
+                .filter(id -> !cached.containsKey(id))
+                .toList();
+        Mono<Map<Long, Post>> loaded = misses.isEmpty()
+                ? Mono.just(Map.of())
+                : postR2dbcRepository.findAllById(misses)
+                        .collectMap(Post::getId)
+                        .doOnNext(found -> userPostCache.putAll(found.values()));
+
+        return loaded.map(found -> ids.stream()
+                .map(id -> cached.getOrDefault(id, found.get(id)))
+                .filter(Objects::nonNull)
+                .toList());
+    }
+
+    // cached bodies are shared, so the author goes on a copy
+    private static Post withUser(Post post, User user) {
+        return new Post(post.getId(), post.getUserId(), post.getTitle(), post.getContent(), user,
+                post.getCreatedAt(), post.getUpdatedAt());
     }
 
     // delete
     public Mono<Void> deleteById(Long id) {
-        return postR2dbcRepository.deleteById(id);
+        Post cached = userPostCache.get(id);
+        Mono<Long> owner = cached != null
+                ? Mono.just(cached.getUserId())
+                : postR2dbcRepository.findById(id).map(Post::getUserId);
+        return owner.flatMap(userId -> postR2dbcRepository.deleteById(id)
+                        .doOnSuccess(v -> {
+                            userPostCache.invalidatePost(id);
+                            userPostCache.invalidateUser(userId);
+                            changeFeedService.publish("post", "deleted", id, null);
+                        }))
+                .then();
     }
 
 }
@@ -1,65 +1,209 @@
 package com.laze.springwebfluxpractice.service;
 
+import com.laze.springwebfluxpractice.cache.SingleFlight;
+import com.laze.springwebfluxpractice.cache.UserCache;
+import com.laze.springwebfluxpractice.cache.UserWriteBehindQueue;
+import com.laze.springwebfluxpractice.config.UserCacheProperties;
+import com.laze.springwebfluxpractice.config.UserProperties;
+import com.laze.springwebfluxpractice.dto.UserResponse;
 import com.laze.springwebfluxpractice.repository.User;
 import com.laze.springwebfluxpractice.repository.UserR2dbcRepository;
 import com.laze.springwebfluxpractice.repository.UserRepository;
+import com.laze.springwebfluxpractice.support.BatchLoader;
+import com.laze.springwebfluxpractice.support.KeysetPagination;
+import com.laze.springwebfluxpractice.support.StageMetrics;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
-import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
 //    private final UserRepository userRepository;
     private final UserR2dbcRepository userR2dbcRepository;
-    private final ReactiveRedisTemplate<String, User> reactiveRedisTemplate;
+    private final UserCache userCache;
+    private final BatchLoader<Long, User> userBatchLoader;
+    private final UserWriteBehindQueue userWriteBehindQueue;
+    private final UserCacheProperties userCacheProperties;
+    private final UserProperties userProperties;
+    private final ChangeFeedService changeFeedService;
+    private final StageMetrics stageMetrics;
+    private final SingleFlight<Long, User> userLoads = new SingleFlight<>();
 
     public Mono<User> create(String name, String email) {
-        return userR2dbcRepository.save(User.builder().name(name).email(email).build());
+        return userR2dbcRepository.save(User.builder().name(name).email(email).build())
+                .doOnNext(user -> changeFeedService.publish("user", "created", user.getId(), UserResponse.of(user)));
     }
 
     public Flux<User> findAll() {
         return userR2dbcRepository.findAll();
     }
 
-    private String getUserCacheKey(Long id) {
-        return "users:%d".formatted(id);
+    public Flux<User> findPage(long after, int limit) {
+        return userR2dbcRepository.findPageAfter(after, limit);
     }
+
+    public Flux<User> streamAll(int fetchSize) {
+        return KeysetPagination.stream(userR2dbcRepository::findPageAfter, User::getId, fetchSize);
+    }
+
+    // users.cache completedEmpty = miss, users.load = the DB path behind it
     public Mono<User> findById(Long id) {
+        return stageMetrics.timed(lookupCache(id), "users.cache")
+                .switchIfEmpty(Mono.defer(() -> stageMetrics.timed(loadUser(id), "users.load")));
+    }
+
+    private Mono<User> lookupCache(Long id) {
+        var earlyRefresh = userCache.getEarlyRefresh();
+        if (earlyRefresh == null) {
+            return userCache.get(id);
+        }
+
+        return userCache.getWithRemainingTtl(id)
+                .doOnNext(cached -> {
+                    if (earlyRefresh.shouldRefresh(cached.getT2())) {
+                        loadUser(id).subscribe(null,
+                                e -> log.warn("Early refresh of user {} failed: {}", id, e.toString()));
+                    }
+                })
+                .map(Tuple2::getT1);
+    }
+
+    // concurrent misses for the same id share one DB read + cache write
+    private Mono<User> loadUser(Long id) {
+        return userLoads.execute(id, () -> {
+            Mono<User> load = userBatchLoader.load(id)
+                    .flatMap(u -> userCache.put(u)
+                            .then(Mono.just(u)));
+            var earlyRefresh = userCache.getEarlyRefresh();
+            return earlyRefresh == null ? load : earlyRefresh.recordRecompute(load);
+        });
+    }
+
+    public Flux<User> findAllById(Collection<Long> ids) {
+        List<Long> distinctIds = List.copyOf(new LinkedHashSet<>(ids));
+        if (distinctIds.isEmpty()) {
+            return Flux.empty();
+        }
 
-        return reactiveRedisTemplate.opsForValue()
-                .get(getUserCacheKey(id))
-                .switchIfEmpty(
-                        userR2dbcRepository.findById(id)
-                                .flatMap(u -> reactiveRedisTemplate.opsForValue()
-                                        .set(getUserCacheKey(id), u, Duration.ofSeconds(60))
-                                .then(Mono.just(u))
-                                )
-                );
+        return userCache.getAll(distinctIds)
+                .flatMapMany(cached -> loadMisses(distinctIds, cached)
+                        .flatMapIterable(loaded -> distinctIds.stream()
+                                .map(id -> cached.getOrDefault(id, loaded.get(id)))
+                                .filter(Objects::nonNull)
+                                .toList()));
+    }
 
+    private Mono<Map<Long, User>> loadMisses(List<Long> ids, Map<Long, User> cached) {
+        List<Long> misses = ids.stream()
+                .filter(id -> !cached.containsKey(id))
+                .toList();
+        if (misses.isEmpty()) {
+            return Mono.just(Map.of());
+        }
 
+        return userR2dbcRepository.findAllById(misses)
+                .collectMap(User::getId)
+                .flatMap(loaded -> userCache.putAll(loaded.values())
+                        .then(Mono.just(loaded)));
     }
 
     public Mono<Void> deleteById(Long id) {
-        return userR2dbcRepository.deleteById(id)
-                .then(reactiveRedisTemplate.unlink(getUserCacheKey(id)))
+        return Mono.fromRunnable(() -> userWriteBehindQueue.discard(id))
+                .then(userR2dbcRepository.deleteById(id))
+                .then(userCache.evict(id))
+                .doOnSuccess(v -> changeFeedService.publish("user", "deleted", id, null))
                 .then(Mono.empty());
     }
 
     public Mono<User> update(Long id, String name, String email) {
-        return userR2dbcRepository.findById(id)
-                .flatMap(user -> {
-                    user.setName(name);
-                    user.setEmail(email);
-                    return userR2dbcRepository.save(user);
-                })
-                .flatMap(u -> reactiveRedisTemplate.unlink(getUserCacheKey(id))
-                        .then(Mono.just(u)));
+        return update(id, name, email, null);
+    }
+
+    // expectedVersion is only enforced when app.users.versioned is on; a stale version surfaces as OptimisticLockingFailureException
+    public Mono<User> update(Long id, String name, String email, Long expectedVersion) {
+        return updateByMode(id, name, email, expectedVersion)
+                .doOnNext(user -> changeFeedService.publish("user", "updated", id, UserResponse.of(user)));
+    }
+
+    private Mono<User> updateByMode(Long id, String name, String email, Long expectedVersion) {
+        return switch (userCacheProperties.getWriteMode()) {
+            case INVALIDATE -> updateRow(id, name, email, expectedVersion)
+                    .filter(rows -> rows > 0)
+                    .flatMap(rows -> userCache.evict(id)
+                            .then(userR2dbcRepository.findById(id)));
+            case WRITE_THROUGH -> updateRow(id, name, email, expectedVersion)
+                    .filter(rows -> rows > 0)
+                    .flatMap(rows -> userR2dbcRepository.findById(id))
+                    .flatMap(u -> userCache.write(u)
+                            .then(Mono.just(u)));
+            case WRITE_BEHIND -> findById(id)
+                    .flatMap(current -> {
+                        if (isVersionMismatch(current, expectedVersion)) {
+                            return Mono.error(new OptimisticLockingFailureException("User " + id + " was modified concurrently"));
+                        }
+                        // the version moves with every accepted update, here in the cache; the flush writes it
+                        // as is, so coalesced updates leave the database at the same version
+                        Long version = userProperties.isVersioned() && current.getVersion() != null
+                                ? current.getVersion() + 1
+                                : current.getVersion();
+                        var u = new User(current.getId(),
+                                name != null ? name : current.getName(),
+                                email != null ? email : current.getEmail(),
+                                current.getCreatedAt(), LocalDateTime.now(), version);
+                        return userCache.write(u)
+                                .doOnSuccess(i -> userWriteBehindQueue.enqueue(u))
+                                .then(Mono.just(u));
+                    });
+        };
+    }
+
+    // same as update but skips the read-back; emits the number of rows changed (0 = no such user)
+    public Mono<Long> updateWithoutBody(Long id, String name, String email, Long expectedVersion) {
+        if (userCacheProperties.getWriteMode() != UserCacheProperties.WriteMode.INVALIDATE) {
+            return update(id, name, email, expectedVersion)
+                    .map(u -> 1L)
+                    .defaultIfEmpty(0L);
+        }
+
+        return updateRow(id, name, email, expectedVersion)
+                .flatMap(rows -> rows > 0
+                        ? userCache.evict(id).thenReturn(rows)
+                        : Mono.just(rows))
+                .doOnNext(rows -> {
+                    if (rows > 0) {
+                        changeFeedService.publish("user", "updated", id, null);
+                    }
+                });
+    }
+
+    private Mono<Long> updateRow(Long id, String name, String email, Long expectedVersion) {
+        return userR2dbcRepository.updatePartial(id, name, email, expectedVersion)
+                .flatMap(rows -> rows > 0 || !userProperties.isVersioned() || expectedVersion == null
+                        ? Mono.just(rows)
+                        : userR2dbcRepository.existsById(id)
+                                .flatMap(exists -> exists
+                                        ? Mono.error(new OptimisticLockingFailureException("User " + id + " was modified concurrently"))
+                                        : Mono.just(0L)));
+    }
+
+    private boolean isVersionMismatch(User current, Long expectedVersion) {
+        return userProperties.isVersioned()
+                && expectedVersion != null
+                && !expectedVersion.equals(current.getVersion());
     }
 
     public Mono<Void> deleteByName(String name) {
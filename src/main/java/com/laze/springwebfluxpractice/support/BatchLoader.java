@@ -0,0 +1,125 @@
+package com.laze.springwebfluxpractice.support;
+
+import com.laze.springwebfluxpractice.config.BatchLoaderProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * DataLoader style micro-batching: keys requested by concurrent callers within {@code window}
+ * (or until {@code maxBatchSize} is reached) are resolved by one call to the batch function.
+ * <p>
+ * Callers enqueue through a serialized FluxSink (an MPSC queue, no spinning on contention). Batches are cut with
+ * fair backpressure, so while all {@code maxConcurrency} dispatch slots are busy keys keep accumulating instead of
+ * overflowing. Should the pipeline still fail, the requests it held are failed and it is restarted.
+ */
+@Slf4j
+public class BatchLoader<K, V> {
+
+    private final Function<List<K>, Flux<V>> batchFunction;
+    private final Function<V, K> keyExtractor;
+    private final BatchLoaderProperties.Spec spec;
+    private volatile FluxSink<Request<K, V>> requests;
+    private volatile Disposable subscription;
+    private volatile boolean closed;
+    private final Counter batches;
+    private final DistributionSummary batchSize;
+
+    public BatchLoader(String name,
+                       Function<List<K>, Flux<V>> batchFunction,
+                       Function<V, K> keyExtractor,
+                       BatchLoaderProperties.Spec spec,
+                       MeterRegistry meterRegistry) {
+        this.batchFunction = batchFunction;
+        this.keyExtractor = keyExtractor;
+        this.spec = spec;
+
+        if (spec.isMetricsEnabled()) {
+            this.batches = Counter.builder("batch.loader.batches")
+                    .tag("loader", name)
+                    .register(meterRegistry);
+            this.batchSize = DistributionSummary.builder("batch.loader.batch.size")
+                    .tag("loader", name)
+                    .register(meterRegistry);
+        } else {
+            this.batches = null;
+            this.batchSize = null;
+        }
+
+        if (spec.isEnabled()) {
+            start();
+        }
+    }
+
+    private void start() {
+        subscription = Flux.<Request<K, V>>create(sink -> requests = sink)
+                .bufferTimeout(spec.getMaxBatchSize(), spec.getWindow(), true)
+                .flatMap(this::dispatch, spec.getMaxConcurrency())
+                // requests still queued or buffered when the pipeline goes down
+                .doOnDiscard(Request.class, request -> request.sink().error(
+                        new IllegalStateException("batch loader restarted")))
+                .subscribe(null, err -> {
+                    log.error("Batch loader pipeline failed, restarting: {}", err.toString());
+                    if (!closed) {
+                        start();
+                    }
+                });
+    }
+
+    public Mono<V> load(K key) {
+        if (!spec.isEnabled()) {
+            return batchFunction.apply(List.of(key)).next();
+        }
+
+        return Mono.create(sink -> requests.next(new Request<>(key, sink)));
+    }
+
+    private Mono<Void> dispatch(List<Request<K, V>> batch) {
+        List<K> keys = batch.stream()
+                .map(Request::key)
+                .distinct()
+                .toList();
+        if (batches != null) {
+            batches.increment();
+            batchSize.record(keys.size());
+        }
+
+        // defer: a batch function that throws instead of returning an error must not reach flatMap
+        return Mono.defer(() -> batchFunction.apply(keys).collectMap(keyExtractor))
+                .doOnNext(results -> complete(batch, results))
+                .doOnError(err -> batch.forEach(request -> request.sink().error(err)))
+                .onErrorResume(err -> Mono.empty())
+                .then();
+    }
+
+    private void complete(List<Request<K, V>> batch, Map<K, V> results) {
+        for (Request<K, V> request : batch) {
+            V value = results.get(request.key());
+            if (value == null) {
+                request.sink().success();
+            } else {
+                request.sink().success(value);
+            }
+        }
+    }
+
+    public void close() {
+        closed = true;
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    private record Request<K, V>(K key, MonoSink<V> sink) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.laze.springwebfluxpractice.support;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * User versions travel as ETags: the PUT response carries the version, If-Match sends it back.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    // null for no condition (absent or *)
+    public static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid If-Match");
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.laze.springwebfluxpractice.support;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.function.Function;
+
+/**
+ * Bounded-concurrency fan-out over a list of keys: repeated keys are called once,
+ * results are optionally emitted in key order, and whatever has arrived by the deadline is returned.
+ */
+public final class FanOut {
+
+    private FanOut() {
+    }
+
+    public static <K, V> Flux<V> execute(Collection<K> keys, Function<K, Mono<V>> call, Options options) {
+        Flux<K> distinctKeys = Flux.fromIterable(new LinkedHashSet<>(keys));
+
+        Flux<V> results = options.preserveOrder()
+                ? distinctKeys.flatMapSequential(call, options.maxConcurrency())
+                : distinctKeys.flatMap(call, options.maxConcurrency());
+
+        return options.deadline() == null ? results : results.take(options.deadline());
+    }
+
+    public record Options(int maxConcurrency, boolean preserveOrder, Duration deadline) {
+    }
+}
@@ -0,0 +1,111 @@
+package com.laze.springwebfluxpractice.support;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * JSON bodies for functional handlers, written straight into the response's buffers with a prebuilt
+ * {@link ObjectWriter} instead of going through codec selection. Buffers are allocated at a moving average of
+ * recent encoded sizes for the type, so a steady stream of similar values is written without buffer growth and
+ * one unusually large value does not inflate every later allocation.
+ * Collections are streamed element by element as a JSON array (or NDJSON), never collected first.
+ */
+public final class JsonResponses<T> {
+
+    private static final int MAX_SIZE_HINT = 64 * 1024;
+    private static final byte[] EMPTY_ARRAY = {'[', ']'};
+    private static final byte[] ARRAY_END = {']'};
+
+    private final ObjectWriter writer;
+    // exponentially weighted (1/8) average of recent sizes; racy updates only cost accuracy
+    private volatile int sizeHint = 256;
+
+    public JsonResponses(ObjectWriter writer) {
+        this.writer = writer;
+    }
+
+    public Mono<ServerResponse> ok(T value) {
+        return body(ServerResponse.ok(), value);
+    }
+
+    // for responses that need more than 200 OK, e.g. an ETag
+    public Mono<ServerResponse> body(ServerResponse.BodyBuilder response, T value) {
+        return response
+                .contentType(MediaType.APPLICATION_JSON)
+                .body((message, context) -> {
+                    DataBuffer buffer;
+                    try {
+                        buffer = encode(message.bufferFactory(), value, -1);
+                    } catch (EncodingException e) {
+                        return Mono.error(e);
+                    }
+                    message.getHeaders().setContentLength(buffer.readableByteCount());
+                    return message.writeWith(Mono.just(buffer));
+                });
+    }
+
+    public Mono<ServerResponse> okArray(Flux<T> values) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body((message, context) -> message.writeWith(array(values, message.bufferFactory())));
+    }
+
+    // one flush per element, like the encoder does for streaming media types
+    public Mono<ServerResponse> okNdjson(Flux<T> values) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body((message, context) -> message.writeAndFlushWith(values
+                        .map(value -> Mono.just(encodeLine(message.bufferFactory(), value)))
+                        .doOnDiscard(DataBuffer.class, DataBufferUtils::release)));
+    }
+
+    private Flux<DataBuffer> array(Flux<T> values, DataBufferFactory bufferFactory) {
+        return Flux.defer(() -> {
+            boolean[] empty = {true};
+            return values
+                    .map(value -> {
+                        int prefix = empty[0] ? '[' : ',';
+                        empty[0] = false;
+                        return encode(bufferFactory, value, prefix);
+                    })
+                    .concatWith(Mono.fromSupplier(() -> bufferFactory.wrap(empty[0] ? EMPTY_ARRAY : ARRAY_END)))
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+        });
+    }
+
+    private DataBuffer encodeLine(DataBufferFactory bufferFactory, T value) {
+        DataBuffer buffer = encode(bufferFactory, value, -1);
+        buffer.ensureWritable(1);
+        buffer.write((byte) '\n');
+        return buffer;
+    }
+
+    // prefix < 0: none
+    private DataBuffer encode(DataBufferFactory bufferFactory, T value, int prefix) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(sizeHint);
+        try (OutputStream out = buffer.asOutputStream()) {
+            if (prefix >= 0) {
+                out.write(prefix);
+            }
+            writer.writeValue(out, value);
+        } catch (IOException | RuntimeException e) {
+            DataBufferUtils.release(buffer);
+            throw new EncodingException("JSON encoding error: " + e.getMessage(), e);
+        }
+
+        int size = Math.min(buffer.readableByteCount() + 1, MAX_SIZE_HINT);
+        int hint = sizeHint;
+        sizeHint = hint + (size - hint) / 8;
+        return buffer;
+    }
+}
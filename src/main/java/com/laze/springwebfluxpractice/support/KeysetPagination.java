@@ -0,0 +1,64 @@
+package com.laze.springwebfluxpractice.support;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Keyset (WHERE id > :after ORDER BY id LIMIT :n) helpers: opaque continuation tokens
+ * and a page-by-page stream that only fetches the next page once the previous one is drained.
+ */
+public final class KeysetPagination {
+
+    private static final String CURSOR_PREFIX = "k1:";
+
+    private KeysetPagination() {
+    }
+
+    public static String encodeCursor(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+
+        try {
+            var decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_PREFIX)) {
+                throw new IllegalArgumentException(decoded);
+            }
+            return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid cursor");
+        }
+    }
+
+    public static int clamp(int size, int max) {
+        return Math.max(1, Math.min(size, max));
+    }
+
+    public static <T> Flux<T> stream(BiFunction<Long, Integer, Flux<T>> pageFetcher,
+                                     Function<T, Long> idExtractor,
+                                     int fetchSize) {
+        return fetchPage(pageFetcher, 0L, fetchSize)
+                .expand(page -> page.size() < fetchSize
+                        ? Mono.empty()
+                        : fetchPage(pageFetcher, idExtractor.apply(page.get(page.size() - 1)), fetchSize))
+                // prefetch 1: the default 256 would let expand run up to 256 pages ahead of the subscriber
+                .flatMapIterable(Function.identity(), 1);
+    }
+
+    private static <T> Mono<List<T>> fetchPage(BiFunction<Long, Integer, Flux<T>> pageFetcher, long after, int size) {
+        return pageFetcher.apply(after, size).collectList();
+    }
+}
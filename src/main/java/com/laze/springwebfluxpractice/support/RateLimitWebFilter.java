@@ -0,0 +1,97 @@
+package com.laze.springwebfluxpractice.support;
+
+import com.laze.springwebfluxpractice.config.RateLimitProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Admission control for the write endpoints listed under app.rate-limit.routes. Requests that match no
+ * route pass straight through; rejected ones get 429 with Retry-After before reaching a controller.
+ * Registered by RateLimitConfig rather than scanned, so controller slice tests do not pick it up.
+ */
+public class RateLimitWebFilter implements WebFilter {
+
+    private final RedisRateLimiter redisRateLimiter;
+    private final RateLimitProperties properties;
+    private final List<CompiledRoute> routes;
+    private final Set<String> trustedProxies;
+
+    public RateLimitWebFilter(RedisRateLimiter redisRateLimiter, RateLimitProperties properties) {
+        this.redisRateLimiter = redisRateLimiter;
+        this.properties = properties;
+        this.routes = properties.getRoutes().stream()
+                .map(route -> {
+                    if (route.getLimit().getRefillPerSecond() <= 0
+                            || route.getClients().values().stream().anyMatch(limit -> limit.getRefillPerSecond() <= 0)) {
+                        throw new IllegalArgumentException("app.rate-limit route %s needs refill-per-second > 0".formatted(route.getName()));
+                    }
+                    return new CompiledRoute(route, PathPatternParser.defaultInstance.parse(route.getPath()));
+                })
+                .toList();
+        this.trustedProxies = Set.copyOf(properties.getTrustedProxies());
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!properties.isEnabled() || routes.isEmpty()) {
+            return chain.filter(exchange);
+        }
+
+        ServerHttpRequest request = exchange.getRequest();
+        CompiledRoute route = match(request);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+
+        String client = clientKey(request);
+        var limit = route.route().getClients().getOrDefault(client, route.route().getLimit());
+        return redisRateLimiter.acquire(route.route().getName(), client, limit)
+                .flatMap(decision -> {
+                    if (decision.allowed()) {
+                        return chain.filter(exchange);
+                    }
+                    var response = exchange.getResponse();
+                    response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+                    response.getHeaders().set(HttpHeaders.RETRY_AFTER,
+                            String.valueOf(Math.max(1, (decision.retryAfterMillis() + 999) / 1000)));
+                    return response.setComplete();
+                });
+    }
+
+    private CompiledRoute match(ServerHttpRequest request) {
+        PathContainer path = request.getPath().pathWithinApplication();
+        for (CompiledRoute route : routes) {
+            if (request.getMethod().matches(route.route().getMethod()) && route.pattern().matches(path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    // the header is caller-controlled: honoured only from trusted proxies, otherwise a random value per
+    // request would mean a fresh bucket per request and anyone could claim another client's override
+    private String clientKey(ServerHttpRequest request) {
+        InetSocketAddress remote = request.getRemoteAddress();
+        String address = remote == null || remote.getAddress() == null ? "unknown" : remote.getAddress().getHostAddress();
+        if (!trustedProxies.contains(address)) {
+            return address;
+        }
+        String header = request.getHeaders().getFirst(properties.getClientHeader());
+        return header == null || header.isBlank() ? address : header;
+    }
+
+    private record CompiledRoute(RateLimitProperties.Route route, PathPattern pattern) {
+    }
+}
@@ -0,0 +1,153 @@
+package com.laze.springwebfluxpractice.support;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.laze.springwebfluxpractice.config.RateLimitProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Token buckets shared by all nodes through Redis (scripts/token-bucket.lua, evaluated atomically).
+ * A node takes up to {@code leaseSize} tokens per round trip and spends them locally until they run out or the
+ * lease expires, so a client well under its limit costs one Redis call per lease rather than per request.
+ * A rejection is remembered locally until its retry time, so a client hammering a full bucket does not reach
+ * Redis either. Tokens granted to concurrent round trips for the same key are added to one lease, not overwritten.
+ */
+@Component
+@Slf4j
+public class RedisRateLimiter {
+
+    private static final RedisScript<Long> TOKEN_BUCKET =
+            RedisScript.of(new ClassPathResource("scripts/token-bucket.lua"), Long.class);
+
+    private final ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, Lease> leases;
+
+    public RedisRateLimiter(ReactiveRedisTemplate<String, String> reactiveRedisTemplate,
+                            RateLimitProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxTrackedClients())
+                .expireAfter(new Expiry<String, Lease>() {
+                    @Override
+                    public long expireAfterCreate(String key, Lease lease, long currentTime) {
+                        return lease.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Lease lease, long currentTime, long currentDuration) {
+                        return lease.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Lease lease, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public record Decision(boolean allowed, long retryAfterMillis) {
+        static final Decision ALLOWED = new Decision(true, 0);
+    }
+
+    public Mono<Decision> acquire(String route, String client, RateLimitProperties.Limit limit) {
+        String key = "ratelimit:%s:%s".formatted(route, client);
+        long now = System.currentTimeMillis();
+
+        Lease lease = leases.getIfPresent(key);
+        if (lease != null) {
+            if (lease.blockedUntil > now) {
+                count(route, "rejected-local");
+                return Mono.just(new Decision(false, lease.blockedUntil - now));
+            }
+            if (lease.tryTake()) {
+                count(route, "local");
+                return Mono.just(Decision.ALLOWED);
+            }
+        }
+
+        int requested = Math.max(1, Math.min(properties.getLeaseSize(), limit.getCapacity()));
+        return reactiveRedisTemplate.execute(TOKEN_BUCKET, List.of(key), List.of(
+                        String.valueOf(limit.getCapacity()),
+                        String.valueOf(limit.getRefillPerSecond()),
+                        String.valueOf(requested)))
+                .next()
+                .map(result -> {
+                    if (result > 0) {
+                        // one token is this request, the rest are spent locally
+                        var granted = Lease.granted(result.intValue() - 1, properties.getLeaseTtl().toNanos());
+                        leases.asMap().merge(key, granted, Lease::combine);
+                        count(route, "redis");
+                        return Decision.ALLOWED;
+                    }
+                    leases.put(key, Lease.blocked(System.currentTimeMillis() - result));
+                    count(route, "rejected");
+                    return new Decision(false, -result);
+                })
+                .onErrorResume(err -> {
+                    log.warn("Rate limit check for {} failed: {}", route, err.getMessage());
+                    count(route, "error");
+                    return Mono.just(properties.isFailOpen() ? Decision.ALLOWED : new Decision(false, 1000));
+                });
+    }
+
+    private void count(String route, String outcome) {
+        meterRegistry.counter("ratelimit.decisions", "route", route, "outcome", outcome).increment();
+    }
+
+    private static final class Lease {
+        final AtomicInteger tokens;
+        final long blockedUntil;
+        final long ttlNanos;
+
+        private Lease(int tokens, long blockedUntil, long ttlNanos) {
+            this.tokens = new AtomicInteger(tokens);
+            this.blockedUntil = blockedUntil;
+            this.ttlNanos = ttlNanos;
+        }
+
+        static Lease granted(int tokens, long ttlNanos) {
+            return new Lease(tokens, 0, ttlNanos);
+        }
+
+        // kept until the retry time, whatever the lease ttl
+        static Lease blocked(long until) {
+            return new Lease(0, until, 0);
+        }
+
+        long ttlNanos() {
+            return blockedUntil > 0
+                    ? TimeUnit.MILLISECONDS.toNanos(Math.max(0, blockedUntil - System.currentTimeMillis()))
+                    : ttlNanos;
+        }
+
+        boolean tryTake() {
+            return tokens.getAndUpdate(t -> t > 0 ? t - 1 : t) > 0;
+        }
+
+        // a grant arriving while another one is still live tops it up
+        static Lease combine(Lease current, Lease granted) {
+            if (current.blockedUntil > 0) {
+                return granted;
+            }
+            current.tokens.addAndGet(granted.tokens.get());
+            return current;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.laze.springwebfluxpractice.support;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times every Spring Data repository call (including the custom fragments) as {@code repository.*}
+ * tagged with the repository interface and method.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.metrics", name = "repositories", havingValue = "true", matchIfMissing = true)
+public class RepositoryMetricsAspect {
+
+    private final StageMetrics stageMetrics;
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object result = joinPoint.proceed();
+        String repository = repositoryNames.computeIfAbsent(joinPoint.getThis().getClass(), RepositoryMetricsAspect::repositoryName);
+        String method = joinPoint.getSignature().getName();
+
+        if (result instanceof Mono<?> mono) {
+            return stageMetrics.timed(mono, "repository", "repository", repository, "method", method);
+        }
+        if (result instanceof Flux<?> flux) {
+            return stageMetrics.timed(flux, "repository", "repository", repository, "method", method);
+        }
+        return result;
+    }
+
+    // the proxy implements e.g. UserR2dbcRepository plus Spring's marker interfaces
+    private static String repositoryName(Class<?> proxyClass) {
+        return Arrays.stream(proxyClass.getInterfaces())
+                .filter(type -> type.getPackageName().startsWith("com.laze.springwebfluxpractice"))
+                .map(Class::getSimpleName)
+                .findFirst()
+                .orElse(proxyClass.getSimpleName());
+    }
+}
@@ -0,0 +1,116 @@
+package com.laze.springwebfluxpractice.support;
+
+import com.laze.springwebfluxpractice.config.MetricsProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Named, tagged Reactor metrics for one stage of a request (cache, repository, upstream call, fan-out).
+ * {@code <name>.flow.duration} carries a status tag, so completedEmpty on a cache stage is a miss.
+ * Tag values must stay low-cardinality: operation names, never ids.
+ * <p>
+ * Only subscription to termination is timed. Reactor's Micrometer.metrics would also record an onNext delay
+ * and a requested summary per element, which for a streamed result set means a timer sample per row.
+ */
+@Component
+public class StageMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final ConcurrentHashMap<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    // registered once per name, tags, status and exception; stop() is a map lookup, not a builder + registry lookup
+    private final ConcurrentHashMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    public StageMetrics(MeterRegistry meterRegistry, MetricsProperties metricsProperties) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = metricsProperties.isStages();
+    }
+
+    // tags are key/value pairs
+    public <T> Mono<T> timed(Mono<T> source, String name, String... tags) {
+        if (!enabled) {
+            return source;
+        }
+
+        return Mono.defer(() -> {
+            FlowTimer timer = new FlowTimer(name, tags);
+            return source
+                    .doOnNext(value -> timer.empty = false)
+                    .doOnError(timer::failed)
+                    .doFinally(timer::stop);
+        });
+    }
+
+    public <T> Flux<T> timed(Flux<T> source, String name, String... tags) {
+        if (!enabled) {
+            return source;
+        }
+
+        return Flux.defer(() -> {
+            FlowTimer timer = new FlowTimer(name, tags);
+            return source
+                    .doOnNext(value -> timer.empty = false)
+                    .doOnError(timer::failed)
+                    .doFinally(timer::stop);
+        });
+    }
+
+    // subscriptions of source that have not terminated yet, exported as the gauge <name>.in-flight
+    public <T> Mono<T> inFlight(Mono<T> source, String name, String... tags) {
+        if (!enabled) {
+            return source;
+        }
+
+        AtomicInteger gauge = inFlight.computeIfAbsent(name + Tags.of(tags), key ->
+                meterRegistry.gauge(name + ".in-flight", Tags.of(tags), new AtomicInteger()));
+        return Mono.defer(() -> {
+            gauge.incrementAndGet();
+            return source.doFinally(signal -> gauge.decrementAndGet());
+        });
+    }
+
+    // one per subscription
+    private final class FlowTimer {
+        private final String name;
+        private final String[] tags;
+        private final Timer.Sample sample = Timer.start(meterRegistry);
+        boolean empty = true;
+        private String exception = "none";
+
+        FlowTimer(String name, String[] tags) {
+            this.name = name;
+            this.tags = tags;
+        }
+
+        void failed(Throwable error) {
+            exception = error.getClass().getSimpleName();
+        }
+
+        void stop(SignalType signal) {
+            String status = switch (signal) {
+                case ON_COMPLETE -> empty ? "completedEmpty" : "completed";
+                case ON_ERROR -> "error";
+                default -> "cancelled";
+            };
+            sample.stop(timers.computeIfAbsent(new TimerKey(name, Arrays.asList(tags), status, exception),
+                    key -> Timer.builder(key.name() + ".flow.duration")
+                            .tags(tags)
+                            .tag("status", key.status())
+                            .tag("exception", key.exception())
+                            .register(meterRegistry)));
+        }
+    }
+
+    private record TimerKey(String name, List<String> tags, String status, String exception) {
+    }
+}
@@ -0,0 +1,31 @@
+-- KEYS[1] bucket hash; ARGV[1] capacity, ARGV[2] refill tokens per second, ARGV[3] tokens requested
+-- returns the tokens granted (>= 1, possibly fewer than requested) or -(milliseconds until one token is available)
+local capacity = tonumber(ARGV[1])
+local rate = tonumber(ARGV[2])
+local requested = tonumber(ARGV[3])
+
+-- server clock, so nodes with skewed clocks share one bucket correctly
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(bucket[1])
+local ts = tonumber(bucket[2])
+if tokens == nil or ts == nil then
+    tokens = capacity
+    ts = now
+end
+tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate / 1000)
+
+local result
+local granted = math.min(requested, math.floor(tokens))
+if granted >= 1 then
+    tokens = tokens - granted
+    result = granted
+else
+    result = -math.max(1, math.ceil((1 - tokens) * 1000 / rate))
+end
+
+redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', now)
+redis.call('PEXPIRE', KEYS[1], math.ceil(capacity * 1000 / rate) + 1000)
+return result
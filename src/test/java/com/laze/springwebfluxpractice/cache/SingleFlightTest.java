@@ -0,0 +1,43 @@
+package com.laze.springwebfluxpractice.cache;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+
+    @Test
+    void concurrentCallsShareOneLoad() {
+        AtomicInteger loads = new AtomicInteger();
+
+        Flux<String> calls = Flux.range(0, 10)
+                .flatMap(i -> singleFlight.execute(1L, () -> Mono.fromCallable(() -> "user" + loads.incrementAndGet())
+                        .delayElement(Duration.ofMillis(50))));
+
+        StepVerifier.create(calls)
+                .expectNextCount(10)
+                .verifyComplete();
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void loadsAgainAfterCompletion() {
+        AtomicInteger loads = new AtomicInteger();
+
+        StepVerifier.create(singleFlight.execute(1L, () -> Mono.fromCallable(loads::incrementAndGet).map(String::valueOf)))
+                .expectNext("1")
+                .verifyComplete();
+        StepVerifier.create(singleFlight.execute(1L, () -> Mono.fromCallable(loads::incrementAndGet).map(String::valueOf)))
+                .expectNext("2")
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,57 @@
+package com.laze.springwebfluxpractice.cache;
+
+import com.laze.springwebfluxpractice.config.RedisConfig;
+import com.laze.springwebfluxpractice.repository.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserBinaryRedisSerializerTest {
+
+    private final RedisSerializer<User> json = new Jackson2JsonRedisSerializer<>(RedisConfig.redisObjectMapper(), User.class);
+    private final UserBinaryRedisSerializer serializer = new UserBinaryRedisSerializer(json, 64);
+
+    @Test
+    void roundTrip() {
+        var user = new User(1L, "laze", "laze@email.com",
+                LocalDateTime.of(2024, 1, 2, 3, 4, 5, 123456000), LocalDateTime.of(1960, 1, 1, 0, 0));
+        user.setVersion(7L);
+
+        byte[] bytes = serializer.serialize(user);
+
+        assertEquals(UserBinaryRedisSerializer.MAGIC, bytes[0]);
+        assertTrue(bytes.length < json.serialize(user).length);
+        assertEquals(user, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void roundTripCompressed() {
+        var user = new User(2L, "laze".repeat(100), "laze@email.com", LocalDateTime.of(2024, 1, 2, 3, 4), null);
+
+        assertEquals(user, serializer.deserialize(serializer.serialize(user)));
+    }
+
+    @Test
+    void nullFields() {
+        var user = new User(null, null, null, null, null);
+
+        assertEquals(user, serializer.deserialize(serializer.serialize(user)));
+    }
+
+    @Test
+    void readsJsonWrittenBeforeMigration() {
+        var user = new User(3L, "laze", "laze@email.com", LocalDateTime.of(2024, 1, 2, 3, 4), LocalDateTime.of(2024, 1, 2, 3, 4));
+
+        assertEquals(user, serializer.deserialize(json.serialize(user)));
+    }
+
+    @Test
+    void rejectsUnknownEncoding() {
+        assertThrows(SerializationException.class, () -> serializer.deserialize(new byte[]{1, 2, 3}));
+    }
+}
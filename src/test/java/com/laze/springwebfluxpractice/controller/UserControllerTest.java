@@ -4,6 +4,7 @@ import com.laze.springwebfluxpractice.dto.UserCreateRequest;
 import com.laze.springwebfluxpractice.dto.UserResponse;
 import com.laze.springwebfluxpractice.dto.UserUpdateRequest;
 import com.laze.springwebfluxpractice.repository.User;
+import com.laze.springwebfluxpractice.service.PostServiceR2dbc;
 import com.laze.springwebfluxpractice.service.UserService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +18,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.when;
@@ -31,6 +33,9 @@ class UserControllerTest {
     @MockitoBean
     private UserService userService;
 
+    @MockitoBean
+    private PostServiceR2dbc postServiceR2dbc;
+
     @Test
     void createUser() {
         when(userService.create("laze", "laze@email.com")).thenReturn(Mono.just(new User(1L,"laze", "laze@email.com", LocalDateTime.now(), LocalDateTime.now())));
@@ -80,6 +85,22 @@ class UserControllerTest {
                 });
     }
 
+    @Test
+    void findAllByIds() {
+        when(userService.findAllById(List.of(1L, 2L))).thenReturn(
+                Flux.just(
+                        new User(1L,"laze1", "laze1@email.com", LocalDateTime.now(), LocalDateTime.now()),
+                        new User(2L,"laze2", "laze2@email.com", LocalDateTime.now(), LocalDateTime.now())
+                )
+        );
+
+        webTestClient.get().uri("/users/batch?ids=1,2")
+                .exchange()
+                .expectStatus().is2xxSuccessful()
+                .expectBodyList(UserResponse.class)
+                .hasSize(2);
+    }
+
     @Test
     void notFoundById() {
 
@@ -0,0 +1,101 @@
+package com.laze.springwebfluxpractice.handler;
+
+import com.laze.springwebfluxpractice.ApiRouteConfig;
+import com.laze.springwebfluxpractice.config.RoutingProperties;
+import com.laze.springwebfluxpractice.dto.UserResponse;
+import com.laze.springwebfluxpractice.dto.UserUpdateRequest;
+import com.laze.springwebfluxpractice.repository.User;
+import com.laze.springwebfluxpractice.service.PostServiceR2dbc;
+import com.laze.springwebfluxpractice.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserHandlerTest {
+
+    private final UserService userService = mock(UserService.class);
+    private final PostServiceR2dbc postServiceR2dbc = mock(PostServiceR2dbc.class);
+    private final WebTestClient webTestClient = WebTestClient.bindToRouterFunction(new ApiRouteConfig()
+                    .userRoutes(userService, postServiceR2dbc, Jackson2ObjectMapperBuilder.json().build(), new RoutingProperties()))
+            .build();
+
+    private static User user(long id, Long version) {
+        return new User(id, "laze" + id, "laze%d@email.com".formatted(id), LocalDateTime.now(), LocalDateTime.now(), version);
+    }
+
+    @Test
+    void findAllStreamsJsonArray() {
+        when(userService.findAll()).thenReturn(Flux.just(user(1, null), user(2, null), user(3, null)));
+
+        webTestClient.get().uri("/users")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(UserResponse.class)
+                .value(users -> assertEquals(3L, users.get(2).getId()));
+    }
+
+    @Test
+    void findAllEmpty() {
+        when(userService.findAll()).thenReturn(Flux.empty());
+
+        webTestClient.get().uri("/users")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().json("[]");
+    }
+
+    @Test
+    void findById() {
+        when(userService.findById(1L)).thenReturn(Mono.just(user(1, null)));
+        when(userService.findById(2L)).thenReturn(Mono.empty());
+
+        webTestClient.get().uri("/users/1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists("Content-Length")
+                .expectBody(UserResponse.class)
+                .value(res -> assertEquals("laze1", res.getName()));
+
+        // the precomputed 404 is reused
+        for (int i = 0; i < 2; i++) {
+            webTestClient.get().uri("/users/2").exchange().expectStatus().isNotFound();
+        }
+        webTestClient.get().uri("/users/abc").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void updateUserSetsETag() {
+        when(userService.update(1L, "laze", "laze@email.com", 3L)).thenReturn(Mono.just(user(1, 4L)));
+
+        webTestClient.put().uri("/users/1")
+                .header("If-Match", "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserUpdateRequest("laze", "laze@email.com"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"4\"")
+                .expectBody(UserResponse.class)
+                .value(res -> assertEquals(4L, res.getVersion()));
+    }
+
+    @Test
+    void missingBodyIsBadRequest() {
+        webTestClient.post().uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+        webTestClient.put().uri("/users/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+}
@@ -0,0 +1,61 @@
+package com.laze.springwebfluxpractice.repository;
+
+import io.r2dbc.spi.ConnectionFactories;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostCustomR2dbcRepositoryImplTest {
+
+    private DatabaseClient databaseClient;
+    private PostCustomR2dbcRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        databaseClient = DatabaseClient.create(ConnectionFactories.get(
+                "r2dbc:h2:mem:///" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        databaseClient.sql("""
+                        CREATE TABLE posts (
+                            id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+                            user_id    BIGINT,
+                            title      VARCHAR(255),
+                            content    VARCHAR(4000),
+                            created_at TIMESTAMP,
+                            updated_at TIMESTAMP
+                        )""")
+                .then()
+                .block();
+        repository = new PostCustomR2dbcRepositoryImpl(databaseClient);
+    }
+
+    @Test
+    void insertAllReturnsOneIdPerRowOfTheChunk() {
+        List<Post> posts = List.of(
+                Post.builder().userId(1L).title("t1").content("c1").build(),
+                Post.builder().userId(2L).title("t2").content("c2").build(),
+                Post.builder().userId(null).title("t3").content(null).build());
+
+        List<Long> ids = repository.insertAll(posts).collectList().block();
+
+        assertNotNull(ids);
+        assertEquals(3, ids.size());
+        assertEquals(3, ids.stream().distinct().count());
+        StepVerifier.create(databaseClient.sql("SELECT id, title FROM posts ORDER BY id")
+                        .map(row -> row.get("id", Long.class) + ":" + row.get("title", String.class))
+                        .all())
+                .expectNext(ids.get(0) + ":t1", ids.get(1) + ":t2", ids.get(2) + ":t3")
+                .verifyComplete();
+    }
+
+    @Test
+    void insertAllOfNothingIsEmpty() {
+        StepVerifier.create(repository.insertAll(List.of()))
+                .verifyComplete();
+    }
+}
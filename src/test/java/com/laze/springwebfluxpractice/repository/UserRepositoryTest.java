@@ -1,8 +1,11 @@
 package com.laze.springwebfluxpractice.repository;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import reactor.test.StepVerifier;
 
+import java.nio.file.Path;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class UserRepositoryTest {
@@ -54,4 +57,96 @@ class UserRepositoryTest {
                 .expectNextCount(1)
                 .verifyComplete();
     }
-}
\ No newline at end of file
+
+    @Test
+    void findByName() {
+        userRepository.save(User.builder().name("laze1").email("laze1@email.com").build());
+        userRepository.save(User.builder().name("laze2").email("laze2@email.com").build());
+        userRepository.save(User.builder().name("laze1").email("laze3@email.com").build());
+        userRepository.save(User.builder().id(1L).name("renamed").email("laze1@email.com").build());
+
+        StepVerifier.create(userRepository.findByName("laze1"))
+                .assertNext(i -> assertEquals(3L, i.getId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void findPageAfter() {
+        for (int i = 1; i <= 5; i++) {
+            userRepository.save(User.builder().name("laze" + i).email("laze%d@email.com".formatted(i)).build());
+        }
+        userRepository.deleteById(3L);
+
+        StepVerifier.create(userRepository.findPageAfter(1L, 2).map(User::getId))
+                .expectNext(2L, 4L)
+                .verifyComplete();
+    }
+
+    @Test
+    void deleteByIdTwice() {
+        userRepository.save(User.builder().name("laze1").email("laze1@email.com").build());
+
+        StepVerifier.create(userRepository.deleteById(1L).concatWith(userRepository.deleteById(1L)))
+                .expectNext(1, 0)
+                .verifyComplete();
+        StepVerifier.create(userRepository.findByName("laze1"))
+                .verifyComplete();
+    }
+
+    @Test
+    void evictsOldestBeyondMaxEntries() {
+        var bounded = new UserRepositoryImpl(2);
+        bounded.save(User.builder().name("laze1").email("laze1@email.com").build());
+        bounded.save(User.builder().name("laze2").email("laze2@email.com").build());
+        bounded.save(User.builder().name("laze3").email("laze3@email.com").build());
+
+        assertEquals(2, bounded.size());
+        assertEquals(1, bounded.evictionCount());
+        StepVerifier.create(bounded.findAll().map(User::getId))
+                .expectNext(2L, 3L)
+                .verifyComplete();
+    }
+
+    @Test
+    void rejectsMaxEntriesWithChangeLog(@TempDir Path dir) {
+        var changeLog = UserChangeLog.open(dir, true, 1024);
+        assertThrows(IllegalArgumentException.class, () -> new UserRepositoryImpl(2, changeLog));
+    }
+
+    @Test
+    void restoresFromChangeLog(@TempDir Path dir) {
+        var persistent = new UserRepositoryImpl(0, UserChangeLog.open(dir, true, 1024));
+        for (int i = 1; i <= 50; i++) {
+            persistent.save(User.builder().name("laze" + i).email("laze%d@email.com".formatted(i)).build()).block();
+        }
+        persistent.save(User.builder().id(2L).name("renamed").email("laze2@email.com").build()).block();
+        persistent.deleteById(50L).block();
+        persistent.destroy();
+
+        var restored = new UserRepositoryImpl(0, UserChangeLog.open(dir, true, 1024));
+        assertEquals(49, restored.size());
+        StepVerifier.create(restored.findByName("renamed").map(User::getId))
+                .expectNext(2L)
+                .verifyComplete();
+        StepVerifier.create(restored.save(User.builder().name("next").email("next@email.com").build()))
+                .assertNext(i -> assertEquals(51L, i.getId()))
+                .verifyComplete();
+        restored.destroy();
+    }
+
+    @Test
+    void deletedHighestIdIsNotReusedAfterCrash(@TempDir Path dir) {
+        var crashed = new UserRepositoryImpl(0, UserChangeLog.open(dir, true, 1 << 20));
+        for (int i = 1; i <= 3; i++) {
+            crashed.save(User.builder().name("laze" + i).email("laze%d@email.com".formatted(i)).build()).block();
+        }
+        crashed.deleteById(3L).block();
+
+        // no destroy(): the restart only sees the log, no snapshot holding the sequence
+        var restored = new UserRepositoryImpl(0, UserChangeLog.open(dir, true, 1 << 20));
+        StepVerifier.create(restored.save(User.builder().name("next").email("next@email.com").build()))
+                .assertNext(i -> assertEquals(4L, i.getId()))
+                .verifyComplete();
+        restored.destroy();
+    }
+}
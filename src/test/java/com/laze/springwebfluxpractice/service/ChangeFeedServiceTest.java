@@ -0,0 +1,59 @@
+package com.laze.springwebfluxpractice.service;
+
+import com.laze.springwebfluxpractice.config.ChangeFeedProperties;
+import com.laze.springwebfluxpractice.dto.ChangeEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeFeedServiceTest {
+
+    private final ChangeFeedService changeFeedService = newService();
+
+    private static ChangeFeedService newService() {
+        var properties = new ChangeFeedProperties();
+        properties.getRelay().setEnabled(false);
+        return new ChangeFeedService(properties, null, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        changeFeedService.destroy();
+    }
+
+    @Test
+    void resumesAfterLastEventId() {
+        StepVerifier.create(changeFeedService.subscribe(Set.of("user"), null).take(3).collectList())
+                .then(() -> {
+                    changeFeedService.publish("post", "created", 10L, null);
+                    for (long id = 1; id <= 3; id++) {
+                        changeFeedService.publish("user", "created", id, null);
+                    }
+                })
+                .assertNext(events -> {
+                    assertEquals(List.of(1L, 2L, 3L), events.stream().map(ChangeEvent::getEntityId).toList());
+                    String lastSeen = events.get(0).getId();
+
+                    StepVerifier.create(changeFeedService.subscribe(Set.of("user"), lastSeen).take(2))
+                            .assertNext(e -> assertEquals(2L, e.getEntityId()))
+                            .assertNext(e -> assertEquals(3L, e.getEntityId()))
+                            .verifyComplete();
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void unknownLastEventIdStartsWithReset() {
+        StepVerifier.create(changeFeedService.subscribe(Set.of(), "0-0").take(1))
+                .assertNext(e -> assertEquals("reset", e.getType()))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,86 @@
+package com.laze.springwebfluxpractice.support;
+
+import com.laze.springwebfluxpractice.config.BatchLoaderProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchLoaderTest {
+
+    @Test
+    void concurrentLoadsAreBatched() {
+        List<List<Long>> calls = new CopyOnWriteArrayList<>();
+        var spec = new BatchLoaderProperties.Spec();
+        spec.setWindow(Duration.ofMillis(50));
+        var loader = new BatchLoader<Long, String>("test",
+                keys -> {
+                    calls.add(keys);
+                    return Flux.fromIterable(keys).filter(k -> k != 3L).map(String::valueOf);
+                },
+                Long::valueOf, spec, new SimpleMeterRegistry());
+
+        var results = Flux.just(1L, 2L, 2L, 3L)
+                .flatMap(id -> loader.load(id).defaultIfEmpty("none"))
+                .collectList();
+
+        StepVerifier.create(results)
+                .assertNext(values -> assertTrue(values.containsAll(List.of("1", "2", "none"))))
+                .verifyComplete();
+        assertEquals(1, calls.size());
+        assertEquals(List.of(1L, 2L, 3L), calls.get(0));
+        loader.close();
+    }
+
+    @Test
+    void slowBatchesBeyondMaxConcurrencyAreQueued() {
+        var spec = new BatchLoaderProperties.Spec();
+        spec.setWindow(Duration.ofMillis(1));
+        spec.setMaxBatchSize(2);
+        spec.setMaxConcurrency(1);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        var loader = new BatchLoader<Long, String>("test",
+                keys -> Flux.fromIterable(keys)
+                        .map(String::valueOf)
+                        .delaySubscription(Duration.ofMillis(20))
+                        .doOnSubscribe(s -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                        .doFinally(signal -> inFlight.decrementAndGet()),
+                Long::valueOf, spec, new SimpleMeterRegistry());
+
+        StepVerifier.create(Flux.range(0, 50).flatMap(i -> loader.load((long) i)).count())
+                .expectNext(50L)
+                .verifyComplete();
+        assertEquals(1, maxInFlight.get());
+
+        // still serving after the burst
+        StepVerifier.create(loader.load(7L)).expectNext("7").verifyComplete();
+        loader.close();
+    }
+
+    @Test
+    void throwingBatchFunctionFailsOnlyItsBatch() {
+        var spec = new BatchLoaderProperties.Spec();
+        spec.setWindow(Duration.ofMillis(5));
+        AtomicInteger calls = new AtomicInteger();
+        var loader = new BatchLoader<Long, String>("test",
+                keys -> {
+                    if (calls.incrementAndGet() == 1) {
+                        throw new IllegalStateException("boom");
+                    }
+                    return Flux.fromIterable(keys).map(String::valueOf);
+                },
+                Long::valueOf, spec, new SimpleMeterRegistry());
+
+        StepVerifier.create(loader.load(1L)).expectErrorMessage("boom").verify(Duration.ofSeconds(1));
+        StepVerifier.create(loader.load(2L)).expectNext("2").verifyComplete();
+        loader.close();
+    }
+}
@@ -0,0 +1,39 @@
+package com.laze.springwebfluxpractice.support;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetPaginationTest {
+
+    private static final long TOTAL = 1000;
+
+    @Test
+    void streamFetchesPagesOnlyAsTheyAreConsumed() {
+        AtomicInteger fetched = new AtomicInteger();
+        var stream = KeysetPagination.<Long>stream((after, size) -> {
+            fetched.incrementAndGet();
+            return Flux.fromStream(LongStream.rangeClosed(after + 1, Math.min(after + size, TOTAL)).boxed());
+        }, Function.identity(), 10);
+
+        StepVerifier.create(stream, 0)
+                .thenRequest(1)
+                .expectNext(1L)
+                // the page being drained plus at most one ahead
+                .then(() -> assertTrue(fetched.get() <= 2, "fetched " + fetched.get()))
+                .thenRequest(24)
+                .expectNextCount(24)
+                .then(() -> assertTrue(fetched.get() <= 4, "fetched " + fetched.get()))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextCount(TOTAL - 25)
+                .verifyComplete();
+        // 100 full pages and the empty one that ends the stream
+        assertEquals(101, fetched.get());
+    }
+}
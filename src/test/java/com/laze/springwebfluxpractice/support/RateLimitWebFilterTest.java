@@ -0,0 +1,87 @@
+package com.laze.springwebfluxpractice.support;
+
+import com.laze.springwebfluxpractice.config.RateLimitProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RateLimitWebFilterTest {
+
+    private final RedisRateLimiter redisRateLimiter = mock(RedisRateLimiter.class);
+    private final RateLimitWebFilter filter = new RateLimitWebFilter(redisRateLimiter, properties());
+
+    private static final InetSocketAddress PROXY = new InetSocketAddress("10.0.0.1", 40000);
+    private static final InetSocketAddress DIRECT = new InetSocketAddress("192.168.0.7", 40000);
+
+    private static RateLimitProperties properties() {
+        var route = new RateLimitProperties.Route();
+        route.setName("user-update");
+        route.setMethod("PUT");
+        route.setPath("/users/{id}");
+        var importer = new RateLimitProperties.Limit();
+        importer.setCapacity(1000);
+        route.setClients(Map.of("importer", importer));
+
+        var properties = new RateLimitProperties();
+        properties.getRoutes().add(route);
+        properties.getTrustedProxies().add("10.0.0.1");
+        return properties;
+    }
+
+    @Test
+    void rejectsWithRetryAfter() {
+        when(redisRateLimiter.acquire(eq("user-update"), eq("noisy"), any()))
+                .thenReturn(Mono.just(new RedisRateLimiter.Decision(false, 1500)));
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.put("/users/1")
+                .remoteAddress(PROXY).header("X-Client-Id", "noisy"));
+        var reached = new AtomicBoolean();
+
+        StepVerifier.create(filter.filter(exchange, e -> Mono.fromRunnable(() -> reached.set(true))))
+                .verifyComplete();
+
+        assertFalse(reached.get());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exchange.getResponse().getStatusCode());
+        assertEquals("2", exchange.getResponse().getHeaders().getFirst("Retry-After"));
+    }
+
+    @Test
+    void appliesClientOverrideAndSkipsUnmatchedRoutes() {
+        when(redisRateLimiter.acquire(eq("user-update"), eq("importer"), argThat(limit -> limit.getCapacity() == 1000)))
+                .thenReturn(Mono.just(new RedisRateLimiter.Decision(true, 0)));
+        var update = MockServerWebExchange.from(MockServerHttpRequest.put("/users/1")
+                .remoteAddress(PROXY).header("X-Client-Id", "importer"));
+        var read = MockServerWebExchange.from(MockServerHttpRequest.get("/users/1"));
+
+        StepVerifier.create(filter.filter(update, e -> Mono.empty()).then(filter.filter(read, e -> Mono.empty())))
+                .verifyComplete();
+
+        assertNull(update.getResponse().getStatusCode());
+        verify(redisRateLimiter, times(1)).acquire(any(), any(), any());
+    }
+
+    @Test
+    void ignoresClientHeaderFromUntrustedAddress() {
+        when(redisRateLimiter.acquire(eq("user-update"), eq("192.168.0.7"), argThat(limit -> limit.getCapacity() == 20)))
+                .thenReturn(Mono.just(new RedisRateLimiter.Decision(true, 0)));
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.put("/users/1")
+                .remoteAddress(DIRECT).header("X-Client-Id", "importer"));
+
+        StepVerifier.create(filter.filter(exchange, e -> Mono.empty()))
+                .verifyComplete();
+
+        assertNull(exchange.getResponse().getStatusCode());
+        verify(redisRateLimiter).acquire(eq("user-update"), eq("192.168.0.7"), any());
+    }
+}
@@ -0,0 +1,116 @@
+package com.laze.springwebfluxpractice.support;
+
+import com.laze.springwebfluxpractice.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisRateLimiterTest {
+
+    private static RedisServer redis;
+    private static LettuceConnectionFactory connectionFactory;
+    private static ReactiveStringRedisTemplate template;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (var socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redis = new RedisServer(port);
+        redis.start();
+        connectionFactory = new LettuceConnectionFactory("127.0.0.1", port);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        template = new ReactiveStringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redis.stop();
+    }
+
+    private static RateLimitProperties.Limit limit(int capacity, double refillPerSecond) {
+        var limit = new RateLimitProperties.Limit();
+        limit.setCapacity(capacity);
+        limit.setRefillPerSecond(refillPerSecond);
+        return limit;
+    }
+
+    private RedisRateLimiter limiter(int leaseSize) {
+        var properties = new RateLimitProperties();
+        properties.setLeaseSize(leaseSize);
+        return new RedisRateLimiter(template, properties, meterRegistry);
+    }
+
+    private double decisions(String outcome) {
+        var counter = meterRegistry.find("ratelimit.decisions").tag("outcome", outcome).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static String client() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Test
+    void scriptGrantsPartiallyThenReturnsRetryAfter() {
+        var script = RedisScript.of(new ClassPathResource("scripts/token-bucket.lua"), Long.class);
+        List<String> keys = List.of("ratelimit:script:" + client());
+        List<String> args = List.of("2", "1", "5");
+
+        assertEquals(2L, template.execute(script, keys, args).blockFirst());
+        long retry = template.execute(script, keys, args).blockFirst();
+        assertTrue(retry < 0 && retry >= -1000, "retry " + retry);
+    }
+
+    @Test
+    void spendsLeaseLocallyAndTakesPartialGrant() {
+        var limiter = limiter(5);
+        var limit = limit(7, 0.001);
+        String client = client();
+
+        for (int i = 0; i < 7; i++) {
+            assertTrue(limiter.acquire("route", client, limit).block().allowed(), "request " + i);
+        }
+        // 5 from the first round trip, the remaining 2 from the second
+        assertEquals(2, decisions("redis"));
+        assertEquals(5, decisions("local"));
+
+        var rejected = limiter.acquire("route", client, limit).block();
+        assertFalse(rejected.allowed());
+        assertTrue(rejected.retryAfterMillis() > 0);
+        assertFalse(limiter.acquire("route", client, limit).block().allowed());
+        assertEquals(1, decisions("rejected-local"));
+    }
+
+    @Test
+    void refillsAfterRetryAfter() throws InterruptedException {
+        var limiter = limiter(1);
+        var limit = limit(1, 20);
+        String client = client();
+
+        assertTrue(limiter.acquire("route", client, limit).block().allowed());
+        var rejected = limiter.acquire("route", client, limit).block();
+        assertFalse(rejected.allowed());
+        assertTrue(rejected.retryAfterMillis() > 0 && rejected.retryAfterMillis() <= 50, "retry " + rejected.retryAfterMillis());
+
+        Thread.sleep(rejected.retryAfterMillis() + 20);
+        assertTrue(limiter.acquire("route", client, limit).block().allowed());
+    }
+}
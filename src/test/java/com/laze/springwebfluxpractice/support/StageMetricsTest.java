@@ -0,0 +1,77 @@
+package com.laze.springwebfluxpractice.support;
+
+import com.laze.springwebfluxpractice.config.MetricsProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.data.repository.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StageMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StageMetrics stageMetrics = new StageMetrics(meterRegistry, new MetricsProperties());
+
+    interface SampleRepository extends Repository<Object, Long> {
+        Flux<Long> findAll();
+
+        Mono<Long> findById(Long id);
+    }
+
+    static class SampleRepositoryImpl implements SampleRepository {
+        @Override
+        public Flux<Long> findAll() {
+            return Flux.range(0, 1000).map(Integer::longValue);
+        }
+
+        @Override
+        public Mono<Long> findById(Long id) {
+            return id > 0 ? Mono.just(id) : Mono.empty();
+        }
+    }
+
+    private long count(String name, String... tags) {
+        var timer = meterRegistry.find(name).tags(tags).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    @Test
+    void streamedFluxIsOneSampleWithoutPerElementMeters() {
+        StepVerifier.create(stageMetrics.timed(Flux.range(0, 1000), "stage", "name", "rows"))
+                .expectNextCount(1000)
+                .verifyComplete();
+
+        assertEquals(1, count("stage.flow.duration", "name", "rows", "status", "completed", "exception", "none"));
+        assertEquals(1, meterRegistry.getMeters().size());
+    }
+
+    @Test
+    void monoStatusesAndErrors() {
+        StepVerifier.create(stageMetrics.timed(Mono.empty(), "stage")).verifyComplete();
+        StepVerifier.create(stageMetrics.timed(Mono.error(new IllegalStateException()), "stage")).verifyError();
+        StepVerifier.create(stageMetrics.timed(Mono.never(), "stage")).thenCancel().verify();
+
+        assertEquals(1, count("stage.flow.duration", "status", "completedEmpty"));
+        assertEquals(1, count("stage.flow.duration", "status", "error", "exception", "IllegalStateException"));
+        assertEquals(1, count("stage.flow.duration", "status", "cancelled"));
+    }
+
+    @Test
+    void repositoryAspectTimesEachCall() {
+        var factory = new AspectJProxyFactory(new SampleRepositoryImpl());
+        factory.addAspect(new RepositoryMetricsAspect(stageMetrics));
+        SampleRepository repository = factory.getProxy();
+
+        StepVerifier.create(repository.findAll()).expectNextCount(1000).verifyComplete();
+        StepVerifier.create(repository.findById(0L)).verifyComplete();
+
+        assertEquals(1, count("repository.flow.duration",
+                "repository", "SampleRepository", "method", "findAll", "status", "completed"));
+        assertEquals(1, count("repository.flow.duration",
+                "repository", "SampleRepository", "method", "findById", "status", "completedEmpty"));
+    }
+}